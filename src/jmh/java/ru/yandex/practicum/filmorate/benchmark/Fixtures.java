@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic films, users and result sets shaped like the rows the storages read.
+ */
+final class Fixtures {
+
+    private static final String[] GENRES = {
+            "Комедия", "Драма", "Мультфильм", "Триллер", "Документальный", "Боевик"
+    };
+    private static final String[] RATINGS = {"G", "PG", "PG-13", "R", "NC-17"};
+
+    private Fixtures() {
+    }
+
+    static List<Film> films(int count, int genresPerFilm) {
+        Random random = new Random(42);
+        List<Film> films = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            int mpaId = 1 + random.nextInt(RATINGS.length);
+            Film film = Film.builder()
+                    .id(i)
+                    .name("Film " + i)
+                    .description("Description of film number " + i + ", long enough to look like a real one.")
+                    .releaseDate(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12),
+                            1 + random.nextInt(28)))
+                    .duration(80 + random.nextInt(100))
+                    .mpa(Mpa.builder().id(mpaId).name(RATINGS[mpaId - 1]).build())
+                    .build();
+            for (int g = 0; g < genresPerFilm; g++) {
+                int genreId = GENRES.length - (i + g) % GENRES.length;
+                film.addGenre(Genre.builder().id(genreId).name(GENRES[genreId - 1]).build());
+            }
+            films.add(film);
+        }
+        return films;
+    }
+
+    static List<User> users(int count) {
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            users.add(User.builder()
+                    .id(i)
+                    .email("user" + i + "@example.com")
+                    .login("user" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(1950 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28)))
+                    .build());
+        }
+        return users;
+    }
+
+    static SimpleResultSet filmRows(List<Film> films) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("FILM_ID", Types.INTEGER, 10, 0);
+        rs.addColumn("NAME", Types.VARCHAR, 255, 0);
+        rs.addColumn("DESCRIPTION", Types.VARCHAR, 200, 0);
+        rs.addColumn("RELEASE_DATE", Types.DATE, 10, 0);
+        rs.addColumn("DURATION", Types.INTEGER, 10, 0);
+        rs.addColumn("MPA_ID", Types.INTEGER, 10, 0);
+        rs.addColumn("MPA_NAME", Types.VARCHAR, 5, 0);
+        for (Film film : films) {
+            rs.addRow(film.getId(), film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()),
+                    film.getDuration(), film.getMpa().getId(), film.getMpa().getName());
+        }
+        rs.setAutoClose(false);
+        return rs;
+    }
+
+    static SimpleResultSet userRows(List<User> users) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("USER_ID", Types.INTEGER, 10, 0);
+        rs.addColumn("EMAIL", Types.VARCHAR, 255, 0);
+        rs.addColumn("LOGIN", Types.VARCHAR, 50, 0);
+        rs.addColumn("NAME", Types.VARCHAR, 50, 0);
+        rs.addColumn("BIRTHDAY", Types.DATE, 10, 0);
+        for (User user : users) {
+            rs.addRow(user.getId(), user.getEmail(), user.getLogin(), user.getName(),
+                    Date.valueOf(user.getBirthday()));
+        }
+        rs.setAutoClose(false);
+        return rs;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accessors on the write and serialization paths: {@link Film#getGenres()} sorts into a new list on every call,
+ * {@link Film#toMap()} and {@link User#toMap()} build the insert parameters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    @Param({"0", "2", "6"})
+    public int genresPerFilm;
+
+    private Film film;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        film = Fixtures.films(1, genresPerFilm).get(0);
+        user = Fixtures.users(1).get(0);
+    }
+
+    @Benchmark
+    public List<Genre> filmGetGenres() {
+        return film.getGenres();
+    }
+
+    @Benchmark
+    public Map<String, Object> filmToMap() {
+        return film.toMap();
+    }
+
+    @Benchmark
+    public Map<String, Object> userToMap() {
+        return user.toMap();
+    }
+}
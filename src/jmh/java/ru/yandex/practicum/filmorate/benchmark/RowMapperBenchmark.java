@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.dao.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dao.mapper.UserRowMapper;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping cost of {@link FilmRowMapper} and {@link UserRowMapper}, per row, over an in-memory result set so
+ * that driver and network time stay out of the numbers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 100;
+
+    private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private SimpleResultSet filmRows;
+    private SimpleResultSet userRows;
+
+    @Setup
+    public void setUp() {
+        filmRows = Fixtures.filmRows(Fixtures.films(ROWS, 0));
+        userRows = Fixtures.userRows(Fixtures.users(ROWS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapFilmRow(Blackhole blackhole) throws SQLException {
+        filmRows.beforeFirst();
+        for (int row = 0; filmRows.next(); row++) {
+            blackhole.consume(filmRowMapper.mapRow(filmRows, row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapUserRow(Blackhole blackhole) throws SQLException {
+        userRows.beforeFirst();
+        for (int row = 0; userRows.next(); row++) {
+            blackhole.consume(userRowMapper.mapRow(userRows, row));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the strong ETags of films, users and reference data. Storages bump the counter of
+ * an entity after every write that changes its representation, together with the counter of its collection;
+ * inside a transaction the bump is deferred until commit, so a version is never ahead of the data readers see.
+ * Every tag also carries the process start, the index rebuild count and the reference data version, since
+ * films embed genre and MPA names and a restart or rebuild may follow changes made behind the storages' back.
+ */
+@Component
+public class EntityVersions implements RebuildableIndex {
+
+    private final Map<Long, Long> films = new ConcurrentHashMap<>();
+    private final Map<Long, Long> users = new ConcurrentHashMap<>();
+    private final AtomicLong allFilms = new AtomicLong();
+    private final AtomicLong allUsers = new AtomicLong();
+    private final AtomicLong referenceData = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Override
+    public void rebuild() {
+        rebuilds.incrementAndGet();
+    }
+
+    public void filmChanged(long filmId) {
+        afterCommit(() -> {
+            films.merge(filmId, 1L, Long::sum);
+            allFilms.incrementAndGet();
+        });
+    }
+
+    public void userChanged(long userId) {
+        afterCommit(() -> {
+            users.merge(userId, 1L, Long::sum);
+            allUsers.incrementAndGet();
+        });
+    }
+
+    public void referenceDataChanged() {
+        referenceData.incrementAndGet();
+    }
+
+    public String filmTag(long filmId) {
+        return tag("film-" + filmId, films.getOrDefault(filmId, 0L));
+    }
+
+    public String filmsTag() {
+        return tag("films", allFilms.get());
+    }
+
+    public String userTag(long userId) {
+        return tag("user-" + userId, users.getOrDefault(userId, 0L));
+    }
+
+    public String usersTag() {
+        return tag("users", allUsers.get());
+    }
+
+    public String referenceDataTag() {
+        return tag("reference", 0);
+    }
+
+    private String tag(String resource, long version) {
+        return "\"" + resource + "-" + epoch + "." + rebuilds.get() + "." + referenceData.get() + "-" + version + "\"";
+    }
+
+    private static void afterCommit(Runnable bump) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+}
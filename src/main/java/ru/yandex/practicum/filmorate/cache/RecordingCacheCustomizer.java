@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the configured Caffeine caches with a {@link RecordingStatsCounter} of their own, so that cache
+ * events carry the cache name. The spec is kept as configured; only its {@code recordStats} option is replaced.
+ */
+@Component
+public class RecordingCacheCustomizer implements CacheManagerCustomizer<CaffeineCacheManager> {
+
+    private static final String RECORD_STATS = "recordStats";
+
+    private final CacheProperties cacheProperties;
+
+    public RecordingCacheCustomizer(CacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Override
+    public void customize(CaffeineCacheManager cacheManager) {
+        String spec = cacheProperties.getCaffeine().getSpec();
+        if (spec == null) {
+            return;
+        }
+        List<String> options = Arrays.stream(spec.split(","))
+                .map(String::trim)
+                .collect(Collectors.toList());
+        if (!options.remove(RECORD_STATS)) {
+            return;
+        }
+        String specWithoutStats = String.join(",", options);
+        for (String name : List.copyOf(cacheManager.getCacheNames())) {
+            Caffeine<Object, Object> builder = StringUtils.hasText(specWithoutStats)
+                    ? Caffeine.from(specWithoutStats)
+                    : Caffeine.newBuilder();
+            cacheManager.registerCustomCache(name, builder.recordStats(() -> new RecordingStatsCounter(name)).build());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import ru.yandex.practicum.filmorate.jfr.CacheAccessEvent;
+
+/**
+ * Caffeine statistics that also emit a {@link CacheAccessEvent} for every hit and miss of a named cache.
+ */
+public class RecordingStatsCounter implements StatsCounter {
+
+    private final String cacheName;
+    private final StatsCounter delegate = new ConcurrentStatsCounter();
+
+    public RecordingStatsCounter(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    @Override
+    public void recordHits(int count) {
+        delegate.recordHits(count);
+        CacheAccessEvent.commit(cacheName, true, count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        delegate.recordMisses(count);
+        CacheAccessEvent.commit(cacheName, false, count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        delegate.recordLoadSuccess(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        delegate.recordLoadFailure(loadTime);
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public void recordEviction() {
+        delegate.recordEviction();
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public void recordEviction(int weight) {
+        delegate.recordEviction(weight);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        delegate.recordEviction(weight, cause);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return delegate.snapshot();
+    }
+}
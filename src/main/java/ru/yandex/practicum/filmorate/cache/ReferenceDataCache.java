@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.jfr.CacheAccessEvent;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable in-memory snapshot of a small reference table (genres, MPA ratings).
+ * Reads go through a volatile reference and never lock; {@link #reload()} swaps in a freshly loaded
+ * snapshot and {@link #invalidate()} drops it so that the next read loads it again.
+ */
+@Slf4j
+public class ReferenceDataCache<T> {
+
+    private final String name;
+    private final Supplier<List<T>> loader;
+    private final ToIntFunction<T> idOf;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    private volatile Snapshot<T> snapshot;
+
+    public ReferenceDataCache(String name, Supplier<List<T>> loader, ToIntFunction<T> idOf) {
+        this.name = name;
+        this.loader = loader;
+        this.idOf = idOf;
+    }
+
+    public List<T> getAll() {
+        Snapshot<T> current = snapshot();
+        hits.increment();
+        CacheAccessEvent.commit(name, true, 1);
+        return current.values;
+    }
+
+    public Optional<T> get(int id) {
+        T value = snapshot().byId.get(id);
+        if (value == null) {
+            misses.increment();
+            CacheAccessEvent.commit(name, false, 1);
+            return Optional.empty();
+        }
+        hits.increment();
+        CacheAccessEvent.commit(name, true, 1);
+        return Optional.of(value);
+    }
+
+    public synchronized void reload() {
+        snapshot = load();
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public Stats getStats() {
+        Snapshot<T> current = snapshot;
+        return Stats.builder()
+                .name(name)
+                .size(current == null ? 0 : current.values.size())
+                .loadedAt(current == null ? null : current.loadedAt)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .loads(loads.sum())
+                .build();
+    }
+
+    private Snapshot<T> snapshot() {
+        Snapshot<T> current = snapshot;
+        return current != null ? current : loadIfAbsent();
+    }
+
+    private synchronized Snapshot<T> loadIfAbsent() {
+        if (snapshot == null) {
+            snapshot = load();
+        }
+        return snapshot;
+    }
+
+    private Snapshot<T> load() {
+        List<T> values = List.copyOf(loader.get());
+        Map<Integer, T> byId = new LinkedHashMap<>();
+        values.forEach(value -> byId.put(idOf.applyAsInt(value), value));
+        loads.increment();
+        log.debug("Loaded {} {} entries into the reference data cache.", values.size(), name);
+        return new Snapshot<>(values, Map.copyOf(byId), Instant.now());
+    }
+
+    private static final class Snapshot<T> {
+
+        private final List<T> values;
+        private final Map<Integer, T> byId;
+        private final Instant loadedAt;
+
+        private Snapshot(List<T> values, Map<Integer, T> byId, Instant loadedAt) {
+            this.values = values;
+            this.byId = byId;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+
+        private final String name;
+        private final int size;
+        private final Instant loadedAt;
+        private final long hits;
+        private final long misses;
+        private final long loads;
+    }
+}
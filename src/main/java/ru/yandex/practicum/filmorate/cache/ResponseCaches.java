@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Names and statistics of the result caches in front of the hot read methods. Cache keys embed the
+ * {@link EntityVersions} tag of what they were loaded from, so a write makes the old entry unreachable at once;
+ * writers also evict it up front so that it does not hold memory until the TTL or W-TinyLFU eviction drops it.
+ */
+@Component
+public class ResponseCaches {
+
+    public static final String FILMS = "films";
+    public static final String POPULAR_FILMS = "popularFilms";
+    public static final String USERS = "users";
+
+    private final CacheManager cacheManager;
+
+    public ResponseCaches(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public List<Stats> getStats() {
+        return cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(ResponseCaches::stats)
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(Cache::clear);
+    }
+
+    private static Stats stats(Cache cache) {
+        Stats.StatsBuilder stats = Stats.builder().name(cache.getName());
+        if (cache instanceof CaffeineCache) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                    ((CaffeineCache) cache).getNativeCache();
+            CacheStats caffeineStats = nativeCache.stats();
+            stats.size(nativeCache.estimatedSize())
+                    .hits(caffeineStats.hitCount())
+                    .misses(caffeineStats.missCount())
+                    .hitRatio(caffeineStats.hitRate())
+                    .evictions(caffeineStats.evictionCount())
+                    .loads(caffeineStats.loadCount())
+                    .averageLoadMillis(caffeineStats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return stats.build();
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+
+        private final String name;
+        private final long size;
+        private final long hits;
+        private final long misses;
+        private final double hitRatio;
+        private final long evictions;
+        private final long loads;
+        private final double averageLoadMillis;
+    }
+}
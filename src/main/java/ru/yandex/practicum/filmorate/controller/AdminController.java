@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.cache.ResponseCaches;
+import ru.yandex.practicum.filmorate.dao.impl.GenreDaoImpl;
+import ru.yandex.practicum.filmorate.dao.impl.MpaDaoImpl;
+import ru.yandex.practicum.filmorate.jfr.FlightRecordings;
+import ru.yandex.practicum.filmorate.service.impl.LikeWriteBehindBuffer;
+
+import javax.validation.constraints.Pattern;
+import java.util.List;
+
+/**
+ * Operational endpoints for caches, the like buffer and flight recordings. They are not authenticated, so the
+ * controller only exists with {@code filmorate.admin.enabled=true}, meant for instances behind a private network.
+ */
+@RestController
+@RequestMapping("/admin")
+@Validated
+@ConditionalOnProperty(name = "filmorate.admin.enabled", havingValue = "true")
+public class AdminController {
+
+    private final GenreDaoImpl genreDao;
+    private final MpaDaoImpl mpaDao;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final EntityVersions versions;
+    private final ResponseCaches responseCaches;
+    private final FlightRecordings flightRecordings;
+
+    public AdminController(GenreDaoImpl genreDao, MpaDaoImpl mpaDao, LikeWriteBehindBuffer likeBuffer,
+                           EntityVersions versions, ResponseCaches responseCaches,
+                           FlightRecordings flightRecordings) {
+        this.genreDao = genreDao;
+        this.mpaDao = mpaDao;
+        this.likeBuffer = likeBuffer;
+        this.versions = versions;
+        this.responseCaches = responseCaches;
+        this.flightRecordings = flightRecordings;
+    }
+
+    @GetMapping("/reference-data")
+    public List<ReferenceDataCache.Stats> getReferenceDataStats() {
+        return List.of(genreDao.getCache().getStats(), mpaDao.getCache().getStats());
+    }
+
+    @PostMapping("/reference-data/reload")
+    public List<ReferenceDataCache.Stats> reloadReferenceData() {
+        genreDao.getCache().reload();
+        mpaDao.getCache().reload();
+        versions.referenceDataChanged();
+        return getReferenceDataStats();
+    }
+
+    @GetMapping("/caches")
+    public List<ResponseCaches.Stats> getCacheStats() {
+        return responseCaches.getStats();
+    }
+
+    @PostMapping("/caches/clear")
+    public List<ResponseCaches.Stats> clearCaches() {
+        responseCaches.clear();
+        return responseCaches.getStats();
+    }
+
+    @GetMapping("/likes/write-behind")
+    public LikeWriteBehindBuffer.Stats getLikeBufferStats() {
+        return likeBuffer.getStats();
+    }
+
+    @PostMapping("/likes/write-behind/flush")
+    public LikeWriteBehindBuffer.Stats flushLikeBuffer() {
+        likeBuffer.flush();
+        return likeBuffer.getStats();
+    }
+
+    @GetMapping("/recordings")
+    public List<FlightRecordings.Info> getRecordings() {
+        return flightRecordings.getRecordings();
+    }
+
+    @PostMapping("/recordings")
+    public FlightRecordings.Info startRecording(
+            @RequestParam(defaultValue = "default") @Pattern(regexp = "default|profile") String settings
+    ) {
+        return flightRecordings.start(settings);
+    }
+
+    @PostMapping("/recordings/{id}/dump")
+    public FlightRecordings.Info dumpRecording(@PathVariable long id) {
+        return flightRecordings.dump(id);
+    }
+
+    @DeleteMapping("/recordings/{id}")
+    public FlightRecordings.Info stopRecording(@PathVariable long id) {
+        return flightRecordings.stop(id);
+    }
+}
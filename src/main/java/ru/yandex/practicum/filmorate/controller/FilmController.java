@@ -1,43 +1,102 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.SearchField;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static ru.yandex.practicum.filmorate.controller.NdjsonStreams.APPLICATION_NDJSON_VALUE;
 
 @RestController
+@Validated
 @RequestMapping("/films")
 public class FilmController {
 
     private final FilmService service;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(@Qualifier("DbFilmService") FilmService service) {
+    public FilmController(@Qualifier("DbFilmService") FilmService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<Film> getAllFilms() {
+    public List<Film> getAllFilms(WebRequest request) {
+        if (request.checkNotModified(service.getFilmsTag())) {
+            return null;
+        }
         return service.getAllFilms();
     }
 
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportFilms() {
+        return NdjsonStreams.<Film>stream(objectMapper, service::exportFilms);
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<Film> getFilmsPage(
+            @RequestParam(defaultValue = "0") @PositiveOrZero long after,
+            @RequestParam @Positive @Max(CursorPage.MAX_LIMIT) int limit
+    ) {
+        return service.getFilmsPage(after, limit);
+    }
+
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable long id) {
+    public Film getFilmById(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(service.getFilmTag(id))) {
+            return null;
+        }
         return service.getFilmById(id);
     }
 
     @GetMapping("/popular")
     public List<Film> getPopularFilms(
-            @RequestParam(defaultValue = "10") Integer count
+            @RequestParam(defaultValue = "10") @Positive Integer count,
+            @RequestParam(required = false) @Positive Integer genreId,
+            @RequestParam(required = false) @Positive Integer year,
+            WebRequest request
     ) {
-        return service.getPopularFilms(count);
+        if (request.checkNotModified(service.getPopularFilmsTag(genreId))) {
+            return null;
+        }
+        return service.getPopularFilms(count, genreId, year);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(
+            @RequestParam @NotBlank String q,
+            @RequestParam(defaultValue = "title,description")
+            Set<@Pattern(regexp = "(?i)title|description") String> by,
+            @RequestParam(defaultValue = "20") @Positive @Max(100) int limit
+    ) {
+        Set<SearchField> fields = EnumSet.noneOf(SearchField.class);
+        by.forEach(field -> fields.add(SearchField.valueOf(field.toUpperCase(Locale.ROOT))));
+        return service.searchFilms(q, fields, limit);
     }
 
     @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
@@ -46,6 +105,14 @@ public class FilmController {
         return service.addFilm(film);
     }
 
+    @PostMapping(value = "/import", consumes = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    public List<ImportResult> importFilms(InputStream body) throws IOException {
+        try (MappingIterator<Film> records = objectMapper.readerFor(Film.class).readValues(body)) {
+            return service.importFilms(records);
+        }
+    }
+
     @PutMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
     public Film updateFilm(@Valid @RequestBody Film film) {
         return service.updateFilm(film);
@@ -5,6 +5,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
 import ru.yandex.practicum.filmorate.dao.GenreDao;
 import ru.yandex.practicum.filmorate.model.Genre;
 
@@ -15,19 +17,28 @@ import java.util.List;
 public class GenreController {
 
     private final GenreDao genreDao;
+    private final EntityVersions versions;
 
     @Autowired
-    public GenreController(GenreDao genreDao) {
+    public GenreController(GenreDao genreDao, EntityVersions versions) {
         this.genreDao = genreDao;
+        this.versions = versions;
     }
 
     @GetMapping
-    public List<Genre> getAllGenres() {
+    public List<Genre> getAllGenres(WebRequest request) {
+        if (request.checkNotModified(versions.referenceDataTag())) {
+            return null;
+        }
         return genreDao.getGenres();
     }
 
     @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable int id) {
-        return genreDao.getGenreById(id);
+    public Genre getGenreById(@PathVariable int id, WebRequest request) {
+        Genre genre = genreDao.getGenreById(id);
+        if (request.checkNotModified(versions.referenceDataTag())) {
+            return null;
+        }
+        return genre;
     }
 }
\ No newline at end of file
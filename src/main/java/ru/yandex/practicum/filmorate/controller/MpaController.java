@@ -4,6 +4,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
 import ru.yandex.practicum.filmorate.dao.MpaDao;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
@@ -14,18 +16,27 @@ import java.util.List;
 public class MpaController {
 
     private final MpaDao mpaDao;
+    private final EntityVersions versions;
 
-    public MpaController(MpaDao mpaDao) {
+    public MpaController(MpaDao mpaDao, EntityVersions versions) {
         this.mpaDao = mpaDao;
+        this.versions = versions;
     }
 
     @GetMapping
-    public List<Mpa> getAllMpa() {
+    public List<Mpa> getAllMpa(WebRequest request) {
+        if (request.checkNotModified(versions.referenceDataTag())) {
+            return null;
+        }
         return mpaDao.getMpaList();
     }
 
     @GetMapping("/{id}")
-    public Mpa findMpaById(@PathVariable int id) {
-        return mpaDao.findMpaById(id);
+    public Mpa findMpaById(@PathVariable int id, WebRequest request) {
+        Mpa mpa = mpaDao.findMpaById(id);
+        if (request.checkNotModified(versions.referenceDataTag())) {
+            return null;
+        }
+        return mpa;
     }
 }
\ No newline at end of file
@@ -1,35 +1,74 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static ru.yandex.practicum.filmorate.controller.NdjsonStreams.APPLICATION_NDJSON_VALUE;
 
 @RestController
+@Validated
 @RequestMapping(value = "/users", produces = "application/json")
 public class UserController {
 
     private final UserService service;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(@Qualifier("DbUserService") UserService service) {
+    public UserController(
+            @Qualifier("DbUserService") UserService service,
+            @Qualifier("DbFilmService") FilmService filmService,
+            ObjectMapper objectMapper
+    ) {
         this.service = service;
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<User> getAllUsers() {
+    public List<User> getAllUsers(WebRequest request) {
+        if (request.checkNotModified(service.getUsersTag())) {
+            return null;
+        }
         return service.getAllUsers();
     }
 
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportUsers() {
+        return NdjsonStreams.<User>stream(objectMapper, service::exportUsers);
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<User> getUsersPage(
+            @RequestParam(defaultValue = "0") @PositiveOrZero long after,
+            @RequestParam @Positive @Max(CursorPage.MAX_LIMIT) int limit
+    ) {
+        return service.getUsersPage(after, limit);
+    }
+
     @GetMapping("/{id}")
-    public User findUserById(@PathVariable long id) {
+    public User findUserById(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(service.getUserTag(id))) {
+            return null;
+        }
         return service.findUserById(id);
     }
 
@@ -38,11 +77,41 @@ public class UserController {
         return service.getFriends(id);
     }
 
+    @GetMapping(value = "/{id}/friends", params = "limit")
+    public CursorPage<User> getFriendsPage(
+            @PathVariable long id,
+            @RequestParam(defaultValue = "0") @PositiveOrZero long after,
+            @RequestParam @Positive @Max(CursorPage.MAX_LIMIT) int limit
+    ) {
+        return service.getFriendsPage(id, after, limit);
+    }
+
+    @GetMapping("/{id}/friends/recommendations")
+    public List<User> getFriendRecommendations(
+            @PathVariable long id,
+            @RequestParam(defaultValue = "10") @Positive @Max(100) int limit
+    ) {
+        return service.getFriendRecommendations(id, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable long id, @PathVariable long otherId) {
         return service.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/{id}/friends/common/{otherId}/count")
+    public int getCommonFriendsCount(@PathVariable long id, @PathVariable long otherId) {
+        return service.getCommonFriendsCount(id, otherId);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(
+            @PathVariable long id,
+            @RequestParam(defaultValue = "10") @Positive @Max(100) int limit
+    ) {
+        return filmService.getRecommendations(id, limit);
+    }
+
     @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
     public User addUser(@Valid @RequestBody User user) {
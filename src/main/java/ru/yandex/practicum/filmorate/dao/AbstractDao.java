@@ -2,11 +2,19 @@ package ru.yandex.practicum.filmorate.dao;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Collections;
+
 public abstract class AbstractDao {
 
+    protected static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
     protected final JdbcTemplate jdbcTemplate;
 
     public AbstractDao(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
-}
\ No newline at end of file
+
+    protected static String inClause(int size) {
+        return "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+}
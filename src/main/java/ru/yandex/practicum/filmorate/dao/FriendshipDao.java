@@ -1,11 +1,29 @@
 package ru.yandex.practicum.filmorate.dao;
 
+import ru.yandex.practicum.filmorate.model.User;
+
 import java.util.List;
 
 public interface FriendshipDao {
 
     List<Long> getFriendsByUser(long id);
 
+    long[] getFriendIds(long id);
+
+    boolean isGraphLoaded();
+
+    long[] getFriendRecommendationIds(long id, int limit);
+
+    boolean isFriend(long userId, long friendId);
+
+    List<User> getFriendUsersByUser(long id);
+
+    List<User> getFriendUsersAfter(long id, long afterId, int limit);
+
+    List<User> getCommonFriendUsers(long id, long otherId);
+
+    int getCommonFriendsCount(long id, long otherId);
+
     void addFriend(long userId, long friendId);
 
     boolean updateFriend(long userId, long friendId, boolean status);
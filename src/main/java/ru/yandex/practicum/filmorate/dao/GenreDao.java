@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.dao;
 
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface GenreDao {
 
@@ -11,4 +13,6 @@ public interface GenreDao {
     Genre getGenreById(int id);
 
     List<Genre> getGenresByFilm(long id);
-}
\ No newline at end of file
+
+    Map<Long, List<Genre>> getGenresByFilms(Collection<Long> filmIds);
+}
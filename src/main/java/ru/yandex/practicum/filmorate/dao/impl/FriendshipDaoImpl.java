@@ -1,43 +1,203 @@
 package ru.yandex.practicum.filmorate.dao.impl;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
 import ru.yandex.practicum.filmorate.dao.AbstractDao;
 import ru.yandex.practicum.filmorate.dao.FriendshipDao;
+import ru.yandex.practicum.filmorate.dao.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.IndexWriteGate;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
+import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Repository
-public class FriendshipDaoImpl extends AbstractDao implements FriendshipDao {
+@Slf4j
+public class FriendshipDaoImpl extends AbstractDao implements FriendshipDao, RebuildableIndex {
 
-    public FriendshipDaoImpl(JdbcTemplate jdbcTemplate) {
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String FRIEND_IDS = "SELECT friend_id FROM friendship WHERE user_id = ? AND status = true " +
+            "UNION SELECT user_id FROM friendship WHERE friend_id = ?";
+    private static final String COMMON_FRIEND_IDS = "(" + FRIEND_IDS + ") INTERSECT (" + FRIEND_IDS + ")";
+    private static final String FRIEND_EDGES = "SELECT user_id AS owner_id, friend_id FROM friendship " +
+            "WHERE status = true UNION SELECT friend_id, user_id FROM friendship";
+
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private final FriendGraph graph = new FriendGraph();
+    private final EntityVersions versions;
+    private final IndexWriteGate gate;
+
+    public FriendshipDaoImpl(JdbcTemplate jdbcTemplate, EntityVersions versions, IndexWriteGate gate) {
         super(jdbcTemplate);
+        this.versions = versions;
+        this.gate = gate;
+    }
+
+    @Override
+    public void rebuild() {
+        gate.rebuild(this::loadGraph);
+    }
+
+    private void loadGraph() {
+        String getAllFriendships = "SELECT user_id, friend_id, status FROM friendship";
+        FriendGraph.Rows rows = new FriendGraph.Rows();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getAllFriendships);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> rows.add(rs.getLong("user_id"), rs.getLong("friend_id"), rs.getBoolean("status")));
+        graph.load(rows);
+        log.info("Friend graph loaded: {} edges, {} bytes", graph.edgeCount(), graph.sizeInBytes());
     }
 
     @Override
     public List<Long> getFriendsByUser(long id) {
-        String getFriendsByUserQuery = "SELECT friend_id FROM friendship WHERE user_id = ? AND status = true " +
-                "UNION SELECT user_id FROM friendship WHERE friend_id = ?";
-        return jdbcTemplate.query(getFriendsByUserQuery, (resultSet, i) -> resultSet.getLong("friend_id"), id, id);
+        if (graph.isLoaded()) {
+            return toList(graph.friends(id));
+        }
+        return jdbcTemplate.query(FRIEND_IDS, (resultSet, i) -> resultSet.getLong("friend_id"), id, id);
+    }
+
+    @Override
+    public long[] getFriendIds(long id) {
+        if (graph.isLoaded()) {
+            return graph.friends(id);
+        }
+        return jdbcTemplate.query(FRIEND_IDS, (resultSet, i) -> resultSet.getLong("friend_id"), id, id).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+    }
+
+    @Override
+    public boolean isGraphLoaded() {
+        return graph.isLoaded();
+    }
+
+    @Override
+    public long[] getFriendRecommendationIds(long id, int limit) {
+        String getRecommendations = "SELECT candidate.friend_id FROM (" + FRIEND_EDGES + ") AS friend " +
+                "JOIN (" + FRIEND_EDGES + ") AS candidate ON candidate.owner_id = friend.friend_id " +
+                "WHERE friend.owner_id = ? AND candidate.friend_id <> ? " +
+                "AND candidate.friend_id NOT IN (" + FRIEND_IDS + ") " +
+                "GROUP BY candidate.friend_id ORDER BY COUNT(*) DESC, candidate.friend_id LIMIT ?";
+        return jdbcTemplate.query(getRecommendations, (resultSet, i) -> resultSet.getLong(1), id, id, id, id, limit)
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @Override
+    public boolean isFriend(long userId, long friendId) {
+        if (graph.isLoaded()) {
+            return graph.isFriend(userId, friendId);
+        }
+        String isFriend = "SELECT COUNT(*) FROM friendship " +
+                "WHERE (user_id = ? AND friend_id = ? AND status = true) OR (user_id = ? AND friend_id = ?)";
+        Integer count = jdbcTemplate.queryForObject(isFriend, Integer.class, userId, friendId, friendId, userId);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public List<User> getFriendUsersByUser(long id) {
+        if (graph.isLoaded() && graph.degree(id) == 0) {
+            return Collections.emptyList();
+        }
+        String getFriendUsers = "SELECT u.* FROM users AS u WHERE u.user_id IN (" + FRIEND_IDS + ") " +
+                "ORDER BY u.user_id";
+        return jdbcTemplate.query(getFriendUsers, userRowMapper, id, id);
+    }
+
+    @Override
+    public List<User> getFriendUsersAfter(long id, long afterId, int limit) {
+        String getFriendUsersAfter = "SELECT u.* FROM users AS u WHERE u.user_id IN (" + FRIEND_IDS + ") " +
+                "AND u.user_id > ? ORDER BY u.user_id LIMIT ?";
+        return jdbcTemplate.query(getFriendUsersAfter, userRowMapper, id, id, afterId, limit);
+    }
+
+    @Override
+    public List<User> getCommonFriendUsers(long id, long otherId) {
+        if (graph.isLoaded()) {
+            return getUsersByIds(graph.commonFriends(id, otherId));
+        }
+        String getCommonFriendUsers = "SELECT u.* FROM users AS u WHERE u.user_id IN (" + COMMON_FRIEND_IDS + ") " +
+                "ORDER BY u.user_id";
+        return jdbcTemplate.query(getCommonFriendUsers, userRowMapper, id, id, otherId, otherId);
+    }
+
+    @Override
+    public int getCommonFriendsCount(long id, long otherId) {
+        if (graph.isLoaded()) {
+            return graph.commonFriendsCount(id, otherId);
+        }
+        String getCommonFriendsCount = "SELECT COUNT(*) FROM (" + COMMON_FRIEND_IDS + ") AS common";
+        Integer count = jdbcTemplate.queryForObject(getCommonFriendsCount, Integer.class, id, id, otherId, otherId);
+        return count == null ? 0 : count;
     }
 
     @Override
+    @Transactional
     public void addFriend(long userId, long friendId) {
+        gate.join();
         String addFriend = "INSERT INTO friendship(user_id, friend_id, status) " +
                 "VALUES (?, ?, false)";
         jdbcTemplate.update(addFriend, friendId, userId);
+        graph.addRow(friendId, userId, false);
+        versions.userChanged(userId);
+        versions.userChanged(friendId);
     }
 
     @Override
+    @Transactional
     public boolean updateFriend(long userId, long friendId, boolean status) {
+        gate.join();
         String updateFriendQuery = "UPDATE friendship SET status = ? WHERE user_id = ? AND friend_id = ?";
         int rowsAffected = jdbcTemplate.update(updateFriendQuery, status, userId, friendId);
+        if (rowsAffected > 0) {
+            graph.setStatus(userId, friendId, status);
+            versions.userChanged(userId);
+            versions.userChanged(friendId);
+        }
         return rowsAffected > 0;
     }
 
     @Override
+    @Transactional
     public void deleteFriend(long userId, long friendId) {
+        gate.join();
         String deleteFriend = "DELETE from friendship WHERE (user_id = ? AND friend_id = ?)";
-        jdbcTemplate.update(deleteFriend, userId, friendId);
+        if (jdbcTemplate.update(deleteFriend, userId, friendId) > 0) {
+            graph.removeRow(userId, friendId);
+            versions.userChanged(userId);
+            versions.userChanged(friendId);
+        }
+    }
+
+    private List<User> getUsersByIds(long[] ids) {
+        List<User> users = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += IN_CLAUSE_CHUNK_SIZE) {
+            long[] chunk = Arrays.copyOfRange(ids, from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.length));
+            String getUsersByIds = "SELECT * FROM users WHERE user_id IN " + inClause(chunk.length) +
+                    " ORDER BY user_id";
+            users.addAll(jdbcTemplate.query(getUsersByIds, userRowMapper, Arrays.stream(chunk).boxed().toArray()));
+        }
+        return users;
+    }
+
+    private static List<Long> toList(long[] ids) {
+        return Arrays.stream(ids)
+                .boxed()
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package ru.yandex.practicum.filmorate.dao.impl;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.dao.AbstractDao;
 import ru.yandex.practicum.filmorate.dao.GenreDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -11,40 +14,77 @@ import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @Slf4j
 public class GenreDaoImpl extends AbstractDao implements GenreDao {
 
+    private final ReferenceDataCache<Genre> cache = new ReferenceDataCache<>("genre", this::loadGenres, Genre::getId);
+
     public GenreDaoImpl(JdbcTemplate jdbcTemplate) {
         super(jdbcTemplate);
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        cache.reload();
+    }
+
+    public ReferenceDataCache<Genre> getCache() {
+        return cache;
+    }
+
     @Override
     public List<Genre> getGenres() {
-        String getGenres = "SELECT * FROM genre ORDER BY genre_id";
-        return jdbcTemplate.query(getGenres, (rs, rowNum) -> mapRowToGenre(rs));
+        return cache.getAll();
     }
 
     @Override
     public Genre getGenreById(int id) {
-        String getGenreById = "SELECT * FROM genre WHERE genre_id = ?";
-        try {
-            return jdbcTemplate.queryForObject(getGenreById, (rs, rowNum) -> mapRowToGenre(rs), id);
-        } catch (DataRetrievalFailureException e) {
+        return cache.get(id).orElseThrow(() -> {
             log.warn("Genre with id {} not found.", id);
-            throw new NotFoundException(String.format("Genre with id %d not found.", id));
-        }
+            return new NotFoundException(String.format("Genre with id %d not found.", id));
+        });
     }
 
     @Override
     public List<Genre> getGenresByFilm(long id) {
-        String getGenresByFilm = "SELECT g.* FROM film_genre AS fg " +
-                "JOIN genre AS g ON fg.genre_id = g.genre_id " +
-                "WHERE fg.film_id =? " +
-                "ORDER BY g.genre_id";
-        return jdbcTemplate.query(getGenresByFilm, (rs, rowNum) -> mapRowToGenre(rs), id);
+        String getGenresByFilm = "SELECT genre_id FROM film_genre WHERE film_id = ? ORDER BY genre_id";
+        List<Genre> genres = new ArrayList<>();
+        jdbcTemplate.query(getGenresByFilm, (RowCallbackHandler) rs -> addGenre(genres, rs), id);
+        return genres;
+    }
+
+    @Override
+    public Map<Long, List<Genre>> getGenresByFilms(Collection<Long> filmIds) {
+        Map<Long, List<Genre>> genresByFilm = new HashMap<>();
+        List<Long> ids = new ArrayList<>(filmIds);
+        RowCallbackHandler collectGenre = rs -> addGenre(
+                genresByFilm.computeIfAbsent(rs.getLong("film_id"), filmId -> new ArrayList<>()), rs);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            String getGenresByFilms = "SELECT film_id, genre_id FROM film_genre " +
+                    "WHERE film_id IN " + inClause(chunk.size()) + " " +
+                    "ORDER BY film_id, genre_id";
+            jdbcTemplate.query(getGenresByFilms, collectGenre, chunk.toArray());
+        }
+        return genresByFilm;
+    }
+
+    private void addGenre(List<Genre> genres, ResultSet rs) throws SQLException {
+        int genreId = rs.getInt("genre_id");
+        cache.get(genreId).ifPresentOrElse(genres::add,
+                () -> log.warn("Genre with id {} is linked to a film but missing from the genre table.", genreId));
+    }
+
+    private List<Genre> loadGenres() {
+        String getGenres = "SELECT * FROM genre ORDER BY genre_id";
+        return jdbcTemplate.query(getGenres, (rs, rowNum) -> mapRowToGenre(rs));
     }
 
     private Genre mapRowToGenre(ResultSet rs) throws SQLException {
@@ -55,4 +95,4 @@ public class GenreDaoImpl extends AbstractDao implements GenreDao {
                 .name(name)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,11 @@
 package ru.yandex.practicum.filmorate.dao.impl;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.dao.AbstractDao;
 import ru.yandex.practicum.filmorate.dao.MpaDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -17,25 +19,37 @@ import java.util.List;
 @Slf4j
 public class MpaDaoImpl extends AbstractDao implements MpaDao {
 
+    private final ReferenceDataCache<Mpa> cache = new ReferenceDataCache<>("mpa", this::loadMpa, Mpa::getId);
+
     public MpaDaoImpl(JdbcTemplate jdbcTemplate) {
         super(jdbcTemplate);
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        cache.reload();
+    }
+
+    public ReferenceDataCache<Mpa> getCache() {
+        return cache;
+    }
+
     @Override
     public List<Mpa> getMpaList() {
-        String getMpa = "SELECT * FROM mpa";
-        return jdbcTemplate.query(getMpa, (rs, rowNum) -> mapRowToMpa(rs));
+        return cache.getAll();
     }
 
     @Override
     public Mpa findMpaById(int id) {
-        String findMpaById = "SELECT * FROM mpa WHERE mpa_id = ?";
-        try {
-            return jdbcTemplate.queryForObject(findMpaById, (rs, rowNum) -> mapRowToMpa(rs), id);
-        } catch (DataRetrievalFailureException e) {
+        return cache.get(id).orElseThrow(() -> {
             log.warn("MPA rating with id {} not found", id);
-            throw new NotFoundException(String.format("MPA rating with id %d not found", id));
-        }
+            return new NotFoundException(String.format("MPA rating with id %d not found", id));
+        });
+    }
+
+    private List<Mpa> loadMpa() {
+        String getMpa = "SELECT * FROM mpa ORDER BY mpa_id";
+        return jdbcTemplate.query(getMpa, (rs, rowNum) -> mapRowToMpa(rs));
     }
 
     private Mpa mapRowToMpa(ResultSet rs) throws SQLException {
@@ -48,4 +62,4 @@ public class MpaDaoImpl extends AbstractDao implements MpaDao {
                 .description(description)
                 .build();
     }
-}
\ No newline at end of file
+}
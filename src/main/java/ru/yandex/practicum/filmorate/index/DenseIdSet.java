@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bit set over auto-increment ids, one bit per id up to the highest id seen. Ids up to the watermark are
+ * answered authoritatively once the set is loaded, anything else has to be checked against the database.
+ * This holds as long as new rows are only inserted through this application and rows are never deleted.
+ */
+public class DenseIdSet {
+
+    private volatile AtomicLongArray words = new AtomicLongArray(0);
+    private volatile long watermark = -1;
+
+    public synchronized void load(long[] ids) {
+        long max = 0;
+        for (long id : ids) {
+            max = Math.max(max, id);
+        }
+        AtomicLongArray loaded = new AtomicLongArray(wordsFor(max));
+        for (long id : ids) {
+            if (id >= 0) {
+                loaded.set((int) (id >>> 6), loaded.get((int) (id >>> 6)) | (1L << id));
+            }
+        }
+        words = loaded;
+        watermark = max;
+    }
+
+    public boolean isLoaded() {
+        return watermark >= 0;
+    }
+
+    public boolean covers(long id) {
+        return id <= watermark;
+    }
+
+    public boolean contains(long id) {
+        if (id < 0) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        long index = id >>> 6;
+        return index < current.length() && (current.get((int) index) & (1L << id)) != 0;
+    }
+
+    public synchronized void add(long id) {
+        set(id);
+        if (watermark >= 0 && id > watermark) {
+            watermark = id;
+        }
+    }
+
+    public synchronized void addProbed(long id) {
+        set(id);
+    }
+
+    public long sizeInBytes() {
+        return 16 + 8L * words.length();
+    }
+
+    private void set(long id) {
+        if (id < 0) {
+            return;
+        }
+        int index = (int) (id >>> 6);
+        AtomicLongArray current = words;
+        if (index >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(index + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            words = grown;
+            current = grown;
+        }
+        current.set(index, current.get(index) | (1L << id));
+    }
+
+    private static int wordsFor(long maxId) {
+        return (int) (maxId >>> 6) + 1;
+    }
+}
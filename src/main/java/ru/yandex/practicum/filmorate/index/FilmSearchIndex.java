@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.index;
+
+import ru.yandex.practicum.filmorate.model.SearchField;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over film titles and descriptions. Text is lower-cased and split into runs of letters and
+ * digits; every field keeps a sorted map from token to the {@link CompressedIntSet} of films containing it, so a
+ * query term of two or more characters also matches the tokens it is a prefix of. Every query term has to match
+ * in one of the searched fields. Per term a film scores its best match: title tokens weigh twice description
+ * tokens, and a whole-token match twice a prefix match. Results are ordered by the summed score, then by id.
+ */
+public class FilmSearchIndex {
+
+    public static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final long[] NO_FILMS = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private Map<SearchField, TreeMap<String, CompressedIntSet>> postings = emptyPostings();
+    private volatile boolean loaded;
+
+    public void load(Builder builder) {
+        writeLock.lock();
+        try {
+            postings = builder.postings;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void add(long filmId, String name, String description) {
+        int film = LikeIndex.toInt(filmId);
+        writeLock.lock();
+        try {
+            index(postings, film, name, description);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void update(long filmId, String oldName, String oldDescription, String name, String description) {
+        int film = LikeIndex.toInt(filmId);
+        writeLock.lock();
+        try {
+            replace(postings.get(SearchField.TITLE), film, tokenize(oldName), tokenize(name));
+            replace(postings.get(SearchField.DESCRIPTION), film, tokenize(oldDescription), tokenize(description));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long[] search(String query, Set<SearchField> fields, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty() || fields.isEmpty() || limit <= 0) {
+            return NO_FILMS;
+        }
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+        readLock.lock();
+        try {
+            LongIntCounter total = null;
+            for (String term : terms) {
+                LongIntCounter termScores = new LongIntCounter(Integer.MAX_VALUE);
+                for (SearchField field : fields) {
+                    int weight = field == SearchField.TITLE ? 2 : 1;
+                    NavigableMap<String, CompressedIntSet> matches = term.length() < MIN_PREFIX_LENGTH
+                            ? postings.get(field).subMap(term, true, term, true)
+                            : postings.get(field).subMap(term, true, term + Character.MAX_VALUE, false);
+                    for (Map.Entry<String, CompressedIntSet> match : matches.entrySet()) {
+                        int score = match.getKey().equals(term) ? 2 * weight : weight;
+                        raise(termScores, match.getValue(), score, total);
+                    }
+                }
+                if (total != null) {
+                    LongIntCounter previous = total;
+                    termScores.forEach((film, score) -> termScores.add(film, previous.get(film)));
+                }
+                total = termScores;
+                if (total.size() == 0) {
+                    return NO_FILMS;
+                }
+            }
+            return total.top(limit, film -> false);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int tokenCount() {
+        readLock.lock();
+        try {
+            return postings.values().stream()
+                    .mapToInt(Map::size)
+                    .sum();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        readLock.lock();
+        try {
+            return postings.values().stream()
+                    .flatMap(field -> field.values().stream())
+                    .mapToLong(CompressedIntSet::sizeInBytes)
+                    .sum();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT).replace('ё', 'е'));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void raise(LongIntCounter scores, CompressedIntSet films, int score, LongIntCounter filter) {
+        films.forEach(film -> {
+            if (filter != null && filter.get(film) == 0) {
+                return;
+            }
+            int current = scores.get(film);
+            if (score > current) {
+                scores.add(film, score - current);
+            }
+        });
+    }
+
+    private static void index(Map<SearchField, TreeMap<String, CompressedIntSet>> postings, int film,
+                              String name, String description) {
+        replace(postings.get(SearchField.TITLE), film, Set.of(), tokenize(name));
+        replace(postings.get(SearchField.DESCRIPTION), film, Set.of(), tokenize(description));
+    }
+
+    private static void replace(TreeMap<String, CompressedIntSet> field, int film,
+                                Set<String> oldTokens, Set<String> newTokens) {
+        for (String token : oldTokens) {
+            if (newTokens.contains(token)) {
+                continue;
+            }
+            CompressedIntSet films = field.get(token);
+            if (films != null && films.remove(film) && films.isEmpty()) {
+                field.remove(token);
+            }
+        }
+        for (String token : newTokens) {
+            field.computeIfAbsent(token, key -> new CompressedIntSet()).add(film);
+        }
+    }
+
+    private static Map<SearchField, TreeMap<String, CompressedIntSet>> emptyPostings() {
+        Map<SearchField, TreeMap<String, CompressedIntSet>> postings = new EnumMap<>(SearchField.class);
+        for (SearchField field : SearchField.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+        return postings;
+    }
+
+    /**
+     * Postings collected for {@link #load(Builder)} while films are streamed from the database.
+     */
+    public static class Builder {
+
+        private final Map<SearchField, TreeMap<String, CompressedIntSet>> postings = emptyPostings();
+
+        public void add(long filmId, String name, String description) {
+            index(postings, LikeIndex.toInt(filmId), name, description);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Friend lists derived from the {@code friendship} table, kept in compressed-sparse-row form: the row of user
+ * {@code u} is the slice {@code [offsets[u], offsets[u + 1])} of the parallel {@code targets}/{@code flags} arrays,
+ * sorted by friend id. A compacted edge costs 5 bytes (an {@code int} target and a {@code byte} of flags) plus
+ * 4 bytes of offsets per user id up to the highest one. Rows changed since the last compaction live in a small
+ * copy-on-write overlay that is folded back into the arrays once it outgrows an eighth of the base.
+ *
+ * <p>A row {@code (user_id, friend_id, status)} makes {@code user_id} a friend of {@code friend_id}
+ * ({@link #REQUESTED}) and, when confirmed, {@code friend_id} a friend of {@code user_id} ({@link #CONFIRMED}).
+ */
+public class FriendGraph {
+
+    public static final byte REQUESTED = 1;
+    public static final byte CONFIRMED = 2;
+
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+    private static final long[] NO_FRIENDS = new long[0];
+    private static final Row EMPTY_ROW = new Row(new int[0], new byte[0]);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private int[] offsets = {0};
+    private int[] targets = new int[0];
+    private byte[] flags = new byte[0];
+    private final Map<Integer, Row> delta = new HashMap<>();
+    private int deltaEdges;
+    private volatile boolean loaded;
+
+    public void load(Rows rows) {
+        int maxUser = -1;
+        for (int i = 0; i < rows.size; i++) {
+            maxUser = Math.max(maxUser, Math.max(rows.userIds[i], rows.friendIds[i]));
+        }
+        int[] counts = new int[maxUser + 2];
+        for (int i = 0; i < rows.size; i++) {
+            counts[rows.friendIds[i] + 1]++;
+            if (rows.statuses[i]) {
+                counts[rows.userIds[i] + 1]++;
+            }
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        long[] packed = new long[counts[counts.length - 1]];
+        int[] position = Arrays.copyOf(counts, counts.length);
+        for (int i = 0; i < rows.size; i++) {
+            packed[position[rows.friendIds[i]]++] = pack(rows.userIds[i], REQUESTED);
+            if (rows.statuses[i]) {
+                packed[position[rows.userIds[i]]++] = pack(rows.friendIds[i], CONFIRMED);
+            }
+        }
+
+        int[] newOffsets = new int[counts.length];
+        int[] newTargets = new int[packed.length];
+        byte[] newFlags = new byte[packed.length];
+        int size = 0;
+        for (int user = 0; user < counts.length - 1; user++) {
+            Arrays.sort(packed, counts[user], counts[user + 1]);
+            for (int i = counts[user]; i < counts[user + 1]; i++) {
+                int target = (int) (packed[i] >>> 8);
+                byte flag = (byte) packed[i];
+                if (size > newOffsets[user] && newTargets[size - 1] == target) {
+                    newFlags[size - 1] |= flag;
+                } else {
+                    newTargets[size] = target;
+                    newFlags[size++] = flag;
+                }
+            }
+            newOffsets[user + 1] = size;
+        }
+
+        writeLock.lock();
+        try {
+            offsets = newOffsets;
+            targets = Arrays.copyOf(newTargets, size);
+            flags = Arrays.copyOf(newFlags, size);
+            delta.clear();
+            deltaEdges = 0;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void addRow(long userId, long friendId, boolean status) {
+        writeLock.lock();
+        try {
+            setFlag(friendId, userId, REQUESTED, true);
+            if (status) {
+                setFlag(userId, friendId, CONFIRMED, true);
+            }
+            compactIfNeeded();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void setStatus(long userId, long friendId, boolean status) {
+        writeLock.lock();
+        try {
+            setFlag(userId, friendId, CONFIRMED, status);
+            compactIfNeeded();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void removeRow(long userId, long friendId) {
+        writeLock.lock();
+        try {
+            setFlag(friendId, userId, REQUESTED, false);
+            setFlag(userId, friendId, CONFIRMED, false);
+            compactIfNeeded();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long[] friends(long userId) {
+        readLock.lock();
+        try {
+            Row row = row(userId);
+            if (row.size() == 0) {
+                return NO_FRIENDS;
+            }
+            long[] friends = new long[row.size()];
+            for (int i = 0; i < friends.length; i++) {
+                friends[i] = row.targets[row.from + i];
+            }
+            return friends;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int degree(long userId) {
+        readLock.lock();
+        try {
+            return row(userId).size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean isFriend(long userId, long friendId) {
+        if (!LikeIndex.fitsInt(friendId)) {
+            return false;
+        }
+        readLock.lock();
+        try {
+            return row(userId).indexOf((int) friendId) >= 0;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long[] commonFriends(long userId, long otherId) {
+        readLock.lock();
+        try {
+            Row first = row(userId);
+            Row second = row(otherId);
+            long[] common = new long[Math.min(first.size(), second.size())];
+            int size = 0;
+            for (int i = first.from, j = second.from; i < first.to && j < second.to; ) {
+                if (first.targets[i] < second.targets[j]) {
+                    i++;
+                } else if (first.targets[i] > second.targets[j]) {
+                    j++;
+                } else {
+                    common[size++] = first.targets[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(common, size);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int commonFriendsCount(long userId, long otherId) {
+        readLock.lock();
+        try {
+            Row first = row(userId);
+            Row second = row(otherId);
+            int count = 0;
+            for (int i = first.from, j = second.from; i < first.to && j < second.to; ) {
+                if (first.targets[i] < second.targets[j]) {
+                    i++;
+                } else if (first.targets[i] > second.targets[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int edgeCount() {
+        readLock.lock();
+        try {
+            return targets.length + deltaEdges - overlaidBaseEdges();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        readLock.lock();
+        try {
+            long size = 4L * offsets.length + 5L * targets.length;
+            for (Row row : delta.values()) {
+                size += 5L * row.size();
+            }
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    int overlaySize() {
+        readLock.lock();
+        try {
+            return delta.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void setFlag(long userId, long friendId, byte flag, boolean value) {
+        int user = LikeIndex.toInt(userId);
+        int friend = LikeIndex.toInt(friendId);
+        Row row = row(user);
+        int index = row.indexOf(friend);
+        Row updated;
+        if (index >= 0) {
+            byte current = row.flags[row.from + index];
+            byte next = (byte) (value ? current | flag : current & ~flag);
+            if (next == current) {
+                return;
+            }
+            updated = next == 0 ? row.without(index) : row.withFlags(index, next);
+        } else if (value) {
+            updated = row.with(-index - 1, friend, flag);
+        } else {
+            return;
+        }
+        Row previous = delta.put(user, updated);
+        deltaEdges += updated.size() - (previous == null ? 0 : previous.size());
+    }
+
+    private void compactIfNeeded() {
+        if (deltaEdges <= Math.max(MIN_COMPACTION_THRESHOLD, targets.length / 8)) {
+            return;
+        }
+        int users = offsets.length - 1;
+        for (int user : delta.keySet()) {
+            users = Math.max(users, user + 1);
+        }
+        int[] newOffsets = new int[users + 1];
+        int[] newTargets = new int[targets.length + deltaEdges];
+        byte[] newFlags = new byte[newTargets.length];
+        int size = 0;
+        for (int user = 0; user < users; user++) {
+            Row row = row(user);
+            System.arraycopy(row.targets, row.from, newTargets, size, row.size());
+            System.arraycopy(row.flags, row.from, newFlags, size, row.size());
+            size += row.size();
+            newOffsets[user + 1] = size;
+        }
+        offsets = newOffsets;
+        targets = Arrays.copyOf(newTargets, size);
+        flags = Arrays.copyOf(newFlags, size);
+        delta.clear();
+        deltaEdges = 0;
+    }
+
+    private int overlaidBaseEdges() {
+        int count = 0;
+        for (int user : delta.keySet()) {
+            if (user < offsets.length - 1) {
+                count += offsets[user + 1] - offsets[user];
+            }
+        }
+        return count;
+    }
+
+    private Row row(long userId) {
+        if (!LikeIndex.fitsInt(userId)) {
+            return EMPTY_ROW;
+        }
+        int user = (int) userId;
+        Row overlay = delta.get(user);
+        if (overlay != null) {
+            return overlay;
+        }
+        if (user >= offsets.length - 1) {
+            return EMPTY_ROW;
+        }
+        return new Row(targets, flags, offsets[user], offsets[user + 1]);
+    }
+
+    private static long pack(int target, byte flag) {
+        return (long) target << 8 | flag;
+    }
+
+    /**
+     * Friendship rows collected for {@link #load(Rows)}.
+     */
+    public static class Rows {
+
+        private int[] userIds = new int[16];
+        private int[] friendIds = new int[16];
+        private boolean[] statuses = new boolean[16];
+        private int size;
+
+        public void add(long userId, long friendId, boolean status) {
+            if (size == userIds.length) {
+                userIds = Arrays.copyOf(userIds, size * 2);
+                friendIds = Arrays.copyOf(friendIds, size * 2);
+                statuses = Arrays.copyOf(statuses, size * 2);
+            }
+            userIds[size] = LikeIndex.toInt(userId);
+            friendIds[size] = LikeIndex.toInt(friendId);
+            statuses[size++] = status;
+        }
+    }
+
+    private static class Row {
+
+        private final int[] targets;
+        private final byte[] flags;
+        private final int from;
+        private final int to;
+
+        private Row(int[] targets, byte[] flags) {
+            this(targets, flags, 0, targets.length);
+        }
+
+        private Row(int[] targets, byte[] flags, int from, int to) {
+            this.targets = targets;
+            this.flags = flags;
+            this.from = from;
+            this.to = to;
+        }
+
+        private int size() {
+            return to - from;
+        }
+
+        private int indexOf(int target) {
+            int index = Arrays.binarySearch(targets, from, to, target);
+            return index >= 0 ? index - from : index + from;
+        }
+
+        private Row with(int index, int target, byte flag) {
+            int[] newTargets = new int[size() + 1];
+            byte[] newFlags = new byte[size() + 1];
+            System.arraycopy(targets, from, newTargets, 0, index);
+            System.arraycopy(flags, from, newFlags, 0, index);
+            newTargets[index] = target;
+            newFlags[index] = flag;
+            System.arraycopy(targets, from + index, newTargets, index + 1, size() - index);
+            System.arraycopy(flags, from + index, newFlags, index + 1, size() - index);
+            return new Row(newTargets, newFlags);
+        }
+
+        private Row without(int index) {
+            int[] newTargets = new int[size() - 1];
+            byte[] newFlags = new byte[size() - 1];
+            System.arraycopy(targets, from, newTargets, 0, index);
+            System.arraycopy(flags, from, newFlags, 0, index);
+            System.arraycopy(targets, from + index + 1, newTargets, index, size() - index - 1);
+            System.arraycopy(flags, from + index + 1, newFlags, index, size() - index - 1);
+            return new Row(newTargets, newFlags);
+        }
+
+        private Row withFlags(int index, byte flag) {
+            byte[] newFlags = Arrays.copyOfRange(flags, from, to);
+            newFlags[index] = flag;
+            return new Row(Arrays.copyOfRange(targets, from, to), newFlags);
+        }
+    }
+}
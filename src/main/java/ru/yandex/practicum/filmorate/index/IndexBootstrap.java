@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Slf4j
+public class IndexBootstrap {
+
+    private final List<RebuildableIndex> indexes;
+
+    public IndexBootstrap(List<RebuildableIndex> indexes) {
+        this.indexes = indexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        for (RebuildableIndex index : indexes) {
+            long start = System.nanoTime();
+            index.rebuild();
+            log.info("In-memory index {} rebuilt in {} ms.", index.getClass().getSimpleName(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps index rebuilds apart from writes. A storage joins the gate before the first statement of a write
+ * transaction and leaves it when the transaction completes, while a rebuild holds the gate exclusively from its
+ * snapshot to the load. A write therefore either commits before the snapshot is taken, or reaches the database
+ * and the indexes only after the rebuilt indexes are in place, and is never lost or applied twice.
+ */
+@Component
+public class IndexWriteGate {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void join() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Index writes have to run in a transaction.");
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        lock.readLock().lock();
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(IndexWriteGate.this);
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    public void rebuild(Runnable rebuild) {
+        lock.writeLock().lock();
+        try {
+            rebuild.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The sparse user-film like matrix, stored both ways as one {@link CompressedIntSet} per film (its likers)
+ * and per user (the liked films). Reads share a read lock, like and unlike take the write lock to update
+ * both sides.
+ */
+public class LikeIndex {
+
+    private static final long[] NO_LIKES = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private Map<Long, CompressedIntSet> likersByFilm = new HashMap<>();
+    private Map<Long, CompressedIntSet> filmsByUser = new HashMap<>();
+    private volatile boolean loaded;
+
+    public void load(Map<Long, CompressedIntSet> likersByFilm) {
+        Map<Long, CompressedIntSet> filmsByUser = new HashMap<>();
+        likersByFilm.forEach((filmId, likers) -> {
+            int film = toInt(filmId);
+            likers.forEach(userId -> filmsByUser.computeIfAbsent((long) userId, id -> new CompressedIntSet()).add(film));
+        });
+        writeLock.lock();
+        try {
+            this.likersByFilm = likersByFilm;
+            this.filmsByUser = filmsByUser;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean add(long filmId, long userId) {
+        int film = toInt(filmId);
+        int user = toInt(userId);
+        writeLock.lock();
+        try {
+            if (!likersByFilm.computeIfAbsent(filmId, id -> new CompressedIntSet()).add(user)) {
+                return false;
+            }
+            filmsByUser.computeIfAbsent(userId, id -> new CompressedIntSet()).add(film);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean remove(long filmId, long userId) {
+        if (!fitsInt(userId)) {
+            return false;
+        }
+        writeLock.lock();
+        try {
+            CompressedIntSet likers = likersByFilm.get(filmId);
+            if (likers == null || !likers.remove((int) userId)) {
+                return false;
+            }
+            if (likers.isEmpty()) {
+                likersByFilm.remove(filmId);
+            }
+            CompressedIntSet films = filmsByUser.get(userId);
+            if (films != null && fitsInt(filmId) && films.remove((int) filmId) && films.isEmpty()) {
+                filmsByUser.remove(userId);
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean contains(long filmId, long userId) {
+        if (!fitsInt(userId)) {
+            return false;
+        }
+        readLock.lock();
+        try {
+            CompressedIntSet likers = likersByFilm.get(filmId);
+            return likers != null && likers.contains((int) userId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int count(long filmId) {
+        readLock.lock();
+        try {
+            CompressedIntSet likers = likersByFilm.get(filmId);
+            return likers == null ? 0 : likers.cardinality();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long[] likers(long filmId) {
+        readLock.lock();
+        try {
+            CompressedIntSet likers = likersByFilm.get(filmId);
+            return likers == null ? NO_LIKES : toLongs(likers);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long[] likedFilms(long userId) {
+        readLock.lock();
+        try {
+            CompressedIntSet films = filmsByUser.get(userId);
+            return films == null ? NO_LIKES : toLongs(films);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long[] commonLikers(long filmId, long otherFilmId) {
+        readLock.lock();
+        try {
+            CompressedIntSet likers = likersByFilm.get(filmId);
+            CompressedIntSet otherLikers = likersByFilm.get(otherFilmId);
+            if (likers == null || otherLikers == null) {
+                return NO_LIKES;
+            }
+            return toLongs(likers.and(otherLikers));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        readLock.lock();
+        try {
+            return likersByFilm.values().stream()
+                    .mapToLong(CompressedIntSet::sizeInBytes)
+                    .sum()
+                    + filmsByUser.values().stream()
+                    .mapToLong(CompressedIntSet::sizeInBytes)
+                    .sum();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    static boolean fitsInt(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    static int toInt(long id) {
+        if (!fitsInt(id)) {
+            throw new IllegalArgumentException(String.format("Id %d is out of the supported range.", id));
+        }
+        return (int) id;
+    }
+
+    private static long[] toLongs(CompressedIntSet set) {
+        long[] values = new long[set.cardinality()];
+        int[] position = new int[1];
+        set.forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Open-addressing map from non-negative ids to int counts, with linear probing over plain arrays. Holds at most
+ * {@code maxKeys} distinct ids; increments of further new ids are dropped. Not thread-safe.
+ */
+public class LongIntCounter {
+
+    private static final long EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private final int maxKeys;
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public LongIntCounter(int maxKeys) {
+        this.maxKeys = maxKeys;
+        this.keys = new long[MIN_CAPACITY];
+        this.counts = new int[MIN_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public boolean increment(long key) {
+        return add(key, 1);
+    }
+
+    public boolean add(long key, int delta) {
+        int slot = slot(keys, key);
+        if (keys[slot] == key) {
+            counts[slot] += delta;
+            return true;
+        }
+        if (size == maxKeys) {
+            return false;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            slot = slot(keys, key);
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        size++;
+        return true;
+    }
+
+    public int get(long key) {
+        int slot = slot(keys, key);
+        return keys[slot] == key ? counts[slot] : 0;
+    }
+
+    public void addAll(LongIntCounter other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} ids with the highest counts, ties broken by the smaller id, skipping excluded ids.
+     */
+    public long[] top(int limit, LongPredicate excluded) {
+        long[] packed = new long[size];
+        int candidates = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && !excluded.test(keys[i])) {
+                packed[candidates++] = (long) counts[i] << 32 | (Integer.MAX_VALUE - LikeIndex.toInt(keys[i]));
+            }
+        }
+        Arrays.sort(packed, 0, candidates);
+        long[] top = new long[Math.max(0, Math.min(limit, candidates))];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = Integer.MAX_VALUE - (int) packed[candidates - 1 - i];
+        }
+        return top;
+    }
+
+    /**
+     * Drops all but the {@code limit} ids with the highest counts, ties broken by the smaller id.
+     */
+    public void retainTop(int limit) {
+        if (size <= limit) {
+            return;
+        }
+        long[] retained = top(limit, key -> false);
+        int[] retainedCounts = new int[retained.length];
+        for (int i = 0; i < retained.length; i++) {
+            retainedCounts[i] = get(retained[i]);
+        }
+        keys = new long[MIN_CAPACITY];
+        counts = new int[MIN_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < retained.length; i++) {
+            add(retained[i], retainedCounts[i]);
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(long key, int count);
+    }
+}
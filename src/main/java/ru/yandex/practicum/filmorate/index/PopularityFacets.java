@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Popularity rankings restricted to a genre, a release year, or both. Every film is registered in one
+ * {@link PopularityLeaderboard} per facet it belongs to: its year, each of its genres, and each genre within
+ * its year. A filtered top-N is then read from a single leaderboard, as cheaply as the unfiltered one.
+ */
+public class PopularityFacets {
+
+    private static final long ANY = 0;
+
+    private volatile Map<Long, PopularityLeaderboard> leaderboards = new ConcurrentHashMap<>();
+    private final Map<Long, FilmFacets> films = new HashMap<>();
+    private volatile boolean loaded;
+
+    public synchronized void load(Map<Long, Long> likesByFilm, Map<Long, Integer> yearByFilm,
+                                  Map<Long, ? extends Collection<Integer>> genresByFilm) {
+        Map<Long, PopularityLeaderboard> loadedLeaderboards = new ConcurrentHashMap<>();
+        films.clear();
+        yearByFilm.forEach((filmId, year) -> {
+            Collection<Integer> genreIds = genresByFilm.get(filmId);
+            FilmFacets film = new FilmFacets(year, genreIds == null ? Set.of() : new HashSet<>(genreIds),
+                    likesByFilm.getOrDefault(filmId, 0L));
+            films.put(filmId, film);
+            film.keys().forEach(key -> loadedLeaderboards.computeIfAbsent(key, k -> new PopularityLeaderboard())
+                    .addFilm(filmId, film.likes));
+        });
+        leaderboards = loadedLeaderboards;
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void putFilm(long filmId, int year, Collection<Integer> genreIds) {
+        FilmFacets current = films.get(filmId);
+        FilmFacets updated = new FilmFacets(year, new HashSet<>(genreIds), current == null ? 0 : current.likes);
+        replace(filmId, current, updated);
+    }
+
+    public synchronized void addGenre(long filmId, int genreId) {
+        FilmFacets current = films.get(filmId);
+        if (current != null && !current.genreIds.contains(genreId)) {
+            Set<Integer> genreIds = new HashSet<>(current.genreIds);
+            genreIds.add(genreId);
+            replace(filmId, current, new FilmFacets(current.year, genreIds, current.likes));
+        }
+    }
+
+    public synchronized void removeGenre(long filmId, int genreId) {
+        FilmFacets current = films.get(filmId);
+        if (current != null && current.genreIds.contains(genreId)) {
+            Set<Integer> genreIds = new HashSet<>(current.genreIds);
+            genreIds.remove(genreId);
+            replace(filmId, current, new FilmFacets(current.year, genreIds, current.likes));
+        }
+    }
+
+    public synchronized void clearGenres(long filmId) {
+        FilmFacets current = films.get(filmId);
+        if (current != null && !current.genreIds.isEmpty()) {
+            replace(filmId, current, new FilmFacets(current.year, Set.of(), current.likes));
+        }
+    }
+
+    public synchronized void changeLikes(long filmId, long delta) {
+        FilmFacets film = films.get(filmId);
+        if (film == null) {
+            return;
+        }
+        film.likes = Math.max(0, film.likes + delta);
+        film.keys().forEach(key -> leaderboard(key).changeLikes(filmId, delta));
+    }
+
+    /**
+     * Most liked films of the genre and/or the year; at least one of the two has to be given.
+     */
+    public List<Long> top(int count, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            throw new IllegalArgumentException("Either a genre or a year is required.");
+        }
+        PopularityLeaderboard leaderboard = leaderboards.get(key(genreId == null ? ANY : genreId,
+                year == null ? ANY : year));
+        return leaderboard == null ? List.of() : leaderboard.top(count);
+    }
+
+    private void replace(long filmId, FilmFacets current, FilmFacets updated) {
+        Set<Long> currentKeys = current == null ? Set.of() : current.keys();
+        Set<Long> updatedKeys = updated.keys();
+        for (long key : currentKeys) {
+            if (!updatedKeys.contains(key)) {
+                leaderboard(key).removeFilm(filmId);
+            }
+        }
+        for (long key : updatedKeys) {
+            if (!currentKeys.contains(key)) {
+                leaderboard(key).addFilm(filmId, updated.likes);
+            }
+        }
+        films.put(filmId, updated);
+    }
+
+    private PopularityLeaderboard leaderboard(long key) {
+        return leaderboards.computeIfAbsent(key, k -> new PopularityLeaderboard());
+    }
+
+    private static long key(long genreId, long year) {
+        return genreId << 32 | year;
+    }
+
+    private static final class FilmFacets {
+
+        private final int year;
+        private final Set<Integer> genreIds;
+        private long likes;
+
+        private FilmFacets(int year, Set<Integer> genreIds, long likes) {
+            this.year = year;
+            this.genreIds = genreIds;
+            this.likes = likes;
+        }
+
+        private Set<Long> keys() {
+            Set<Long> keys = new HashSet<>();
+            keys.add(key(ANY, year));
+            for (int genreId : genreIds) {
+                keys.add(key(genreId, ANY));
+                keys.add(key(genreId, year));
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Like counters for every film kept in popularity order: most likes first, lower film id first on ties.
+ * Writers hold the write lock while they move a film in the ranking and readers walk it under the read lock,
+ * so a top-N never misses a film or lists one twice. A reload builds new structures and swaps them in at once.
+ */
+public class PopularityLeaderboard {
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingLong((Entry entry) -> entry.likes)
+            .reversed()
+            .thenComparingLong(entry -> entry.filmId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private volatile Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private NavigableSet<Entry> ranking = new TreeSet<>(RANKING_ORDER);
+    private volatile boolean loaded;
+
+    public void load(Map<Long, Long> likesByFilm) {
+        Map<Long, Entry> loadedEntries = new ConcurrentHashMap<>();
+        NavigableSet<Entry> loadedRanking = new TreeSet<>(RANKING_ORDER);
+        likesByFilm.forEach((filmId, likes) -> {
+            Entry entry = new Entry(filmId, Math.max(0, likes));
+            loadedEntries.put(filmId, entry);
+            loadedRanking.add(entry);
+        });
+        writeLock.lock();
+        try {
+            entries = loadedEntries;
+            ranking = loadedRanking;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void addFilm(long filmId) {
+        writeLock.lock();
+        try {
+            if (!entries.containsKey(filmId)) {
+                put(new Entry(filmId, 0));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void addFilm(long filmId, long likes) {
+        writeLock.lock();
+        try {
+            Entry current = entries.get(filmId);
+            if (current == null) {
+                put(new Entry(filmId, likes));
+            } else if (current.likes != likes) {
+                move(current, likes);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        writeLock.lock();
+        try {
+            Entry current = entries.remove(filmId);
+            if (current != null) {
+                ranking.remove(current);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void changeLikes(long filmId, long delta) {
+        writeLock.lock();
+        try {
+            Entry current = entries.get(filmId);
+            long likes = current == null ? 0 : current.likes;
+            long updatedLikes = Math.max(0, likes + delta);
+            if (current == null) {
+                put(new Entry(filmId, updatedLikes));
+            } else if (updatedLikes != likes) {
+                move(current, updatedLikes);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long getLikes(long filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? 0 : entry.likes;
+    }
+
+    public List<Long> top(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        readLock.lock();
+        try {
+            List<Long> filmIds = new ArrayList<>(Math.min(count, ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (filmIds.size() < count && iterator.hasNext()) {
+                filmIds.add(iterator.next().filmId);
+            }
+            return filmIds;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void move(Entry current, long likes) {
+        ranking.remove(current);
+        put(new Entry(current.filmId, likes));
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.filmId, entry);
+        ranking.add(entry);
+    }
+
+    private static final class Entry {
+
+        private final long filmId;
+        private final long likes;
+
+        private Entry(long filmId, long likes) {
+            this.filmId = filmId;
+            this.likes = likes;
+        }
+    }
+}
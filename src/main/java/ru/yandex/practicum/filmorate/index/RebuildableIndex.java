@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.index;
+
+public interface RebuildableIndex {
+
+    void rebuild();
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts {@link QueryCountingDataSource} in front of the application's data source, unless query tracking is off.
+ */
+@Component
+public class QueryCountingPostProcessor implements BeanPostProcessor {
+
+    private final boolean enabled;
+
+    public QueryCountingPostProcessor(@Value("${filmorate.query-tracking.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource && !(bean instanceof QueryCountingDataSource)) {
+            return new QueryCountingDataSource((DataSource) bean);
+        }
+        return bean;
+    }
+}
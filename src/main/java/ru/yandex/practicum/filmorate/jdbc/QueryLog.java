@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Statements executed within one {@link QueryTracker} scope, grouped by SQL shape: whitespace is collapsed and
+ * {@code IN} lists of any length count as one shape. A scope opened inside another also reports to the outer one.
+ * Not thread-safe; a scope belongs to one thread at a time, and an asynchronous request hands it over.
+ */
+public class QueryLog {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final String BATCH = "<batch>";
+
+    private final QueryLog parent;
+    private final Map<String, Integer> statements = new LinkedHashMap<>();
+    private int count;
+    private long nanos;
+
+    QueryLog(QueryLog parent) {
+        this.parent = parent;
+    }
+
+    QueryLog getParent() {
+        return parent;
+    }
+
+    void record(String sql, long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+        statements.merge(shape(sql), 1, Integer::sum);
+        if (parent != null) {
+            parent.record(sql, elapsedNanos);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getTotalMillis() {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public Map<String, Integer> getStatements() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    /**
+     * Shapes executed at least {@code threshold} times, the usual sign of a query issued per row (N+1).
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.forEach((shape, executions) -> {
+            if (executions >= threshold) {
+                repeated.put(shape, executions);
+            }
+        });
+        return repeated;
+    }
+
+    static String shape(String sql) {
+        if (sql == null) {
+            return BATCH;
+        }
+        String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return PARAMETER_LIST.matcher(collapsed).replaceAll("(?, ...)");
+    }
+}
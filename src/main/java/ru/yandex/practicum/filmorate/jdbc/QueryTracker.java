@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+/**
+ * Per-thread scopes that collect the statements executed through {@link QueryCountingDataSource}. The web layer
+ * opens one per request and resumes it on the threads that serve the request asynchronously; tests open their
+ * own with {@link #track(Runnable)}. Outside any scope statements are not recorded.
+ */
+public final class QueryTracker {
+
+    private static final ThreadLocal<QueryLog> CURRENT = new ThreadLocal<>();
+
+    private QueryTracker() {
+    }
+
+    public static QueryLog start() {
+        QueryLog queries = new QueryLog(CURRENT.get());
+        CURRENT.set(queries);
+        return queries;
+    }
+
+    public static void stop(QueryLog queries) {
+        if (queries.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(queries.getParent());
+        }
+    }
+
+    /**
+     * Continues a scope opened on another thread, for the part of a request that runs asynchronously.
+     */
+    public static void resume(QueryLog queries) {
+        CURRENT.set(queries);
+    }
+
+    public static void suspend() {
+        CURRENT.remove();
+    }
+
+    public static QueryLog track(Runnable action) {
+        QueryLog queries = start();
+        try {
+            action.run();
+        } finally {
+            stop(queries);
+        }
+        return queries;
+    }
+
+    static void record(String sql, long elapsedNanos) {
+        QueryLog queries = CURRENT.get();
+        if (queries != null) {
+            queries.record(sql, elapsedNanos);
+        }
+    }
+}
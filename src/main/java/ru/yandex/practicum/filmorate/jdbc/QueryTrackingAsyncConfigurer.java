@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Resumes the request's {@link QueryLog} on the thread that runs an asynchronous handler, such as a
+ * {@code StreamingResponseBody}, so that {@link QueryTrackingFilter} sees the statements of the whole request.
+ */
+@Component
+public class QueryTrackingAsyncConfigurer implements WebMvcConfigurer, CallableProcessingInterceptor {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(this);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object queries = request.getAttribute(QueryTrackingFilter.QUERY_LOG_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (queries != null) {
+            QueryTracker.resume((QueryLog) queries);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        QueryTracker.suspend();
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tracks the statements of every request. The count and database time go into response headers, written just
+ * before the body, and into the log; a request that runs one SQL shape {@code repeat-threshold} times or more is
+ * logged as a warning, since that usually means a query per row. Asynchronous requests such as NDJSON streams
+ * keep one scope across threads with {@link QueryTrackingAsyncConfigurer} and are logged on their async
+ * dispatch; they get no headers, since their statements run while the body is being written.
+ */
+@Component
+@Slf4j
+public class QueryTrackingFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+    public static final String QUERY_LOG_ATTRIBUTE = QueryLog.class.getName();
+
+    private final boolean enabled;
+    private final int repeatThreshold;
+
+    public QueryTrackingFilter(@Value("${filmorate.query-tracking.enabled:true}") boolean enabled,
+                               @Value("${filmorate.query-tracking.repeat-threshold:10}") int repeatThreshold) {
+        this.enabled = enabled;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryLog queries = (QueryLog) request.getAttribute(QUERY_LOG_ATTRIBUTE);
+        if (queries == null) {
+            queries = QueryTracker.start();
+            request.setAttribute(QUERY_LOG_ATTRIBUTE, queries);
+            try {
+                chain.doFilter(request, new QueryHeaderResponse(request, response, queries));
+            } finally {
+                QueryTracker.stop(queries);
+            }
+        } else {
+            QueryTracker.resume(queries);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                QueryTracker.suspend();
+            }
+        }
+        if (isAsyncStarted(request)) {
+            return;
+        }
+        Map<String, Integer> repeated = queries.getRepeatedStatements(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            log.warn("{} {} ran {} statements in {} ms, repeating {}.", request.getMethod(), request.getRequestURI(),
+                    queries.getCount(), millis(queries), repeated);
+        } else {
+            log.debug("{} {} ran {} statements in {} ms.", request.getMethod(), request.getRequestURI(),
+                    queries.getCount(), millis(queries));
+        }
+    }
+
+    private static String millis(QueryLog queries) {
+        return String.format(Locale.ROOT, "%.3f", queries.getTotalMillis());
+    }
+
+    private static final class QueryHeaderResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private final QueryLog queries;
+        private boolean headersWritten;
+
+        private QueryHeaderResponse(HttpServletRequest request, HttpServletResponse response, QueryLog queries) {
+            super(response);
+            this.request = request;
+            this.queries = queries;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        private void writeHeaders() {
+            if (!headersWritten && !isCommitted() && !request.isAsyncStarted()) {
+                headersWritten = true;
+                setHeader(QUERY_COUNT_HEADER, Integer.toString(queries.getCount()));
+                setHeader(QUERY_TIME_HEADER, millis(queries));
+            }
+        }
+    }
+}
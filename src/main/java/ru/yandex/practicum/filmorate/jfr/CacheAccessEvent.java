@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("filmorate.CacheAccess")
+@Label("Cache Access")
+@Category({"Filmorate", "Cache"})
+@Description("Hits or misses of a result or reference data cache")
+@StackTrace(false)
+public class CacheAccessEvent extends Event {
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Hit")
+    boolean hit;
+
+    @Label("Count")
+    int count;
+
+    public static void commit(String cache, boolean hit, int count) {
+        CacheAccessEvent event = new CacheAccessEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.hit = hit;
+            event.count = count;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("filmorate.DaoCall")
+@Label("DAO Call")
+@Category({"Filmorate", "Data Access"})
+@Description("A call to a storage or DAO method with the statements it ran")
+@StackTrace(false)
+public class DaoCallEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("SQL")
+    @Description("Shapes of the statements run, separated by semicolons")
+    String sql;
+
+    @Label("Statements")
+    int statements;
+
+    @Label("Rows")
+    @Description("Size of the returned collection, or 1 for a single value")
+    int rows;
+
+    @Label("Exception")
+    String exception;
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.jdbc.QueryLog;
+import ru.yandex.practicum.filmorate.jdbc.QueryTracker;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Emits {@link DaoCallEvent} and {@link ServiceCallEvent} around the operations timed by
+ * {@link ru.yandex.practicum.filmorate.metrics.OperationMetricsAspect}. Nothing beyond the event allocation happens
+ * unless a recording has the events enabled; only then are the statements of a DAO call collected.
+ */
+@Aspect
+@Component
+public class FlightRecorderAspect {
+
+    private static final String NO_EXCEPTION = "none";
+
+    @Around("ru.yandex.practicum.filmorate.metrics.OperationMetricsAspect.dataAccess()")
+    public Object recordDataAccess(ProceedingJoinPoint joinPoint) throws Throwable {
+        DaoCallEvent event = new DaoCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        event.exception = NO_EXCEPTION;
+        QueryLog queries = QueryTracker.start();
+        try {
+            Object result = joinPoint.proceed();
+            event.rows = rows(result);
+            return result;
+        } catch (Throwable e) {
+            event.exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            QueryTracker.stop(queries);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation(joinPoint);
+                event.statements = queries.getCount();
+                event.sql = String.join("; ", queries.getStatements().keySet());
+                event.commit();
+            }
+        }
+    }
+
+    @Around("ru.yandex.practicum.filmorate.metrics.OperationMetricsAspect.serviceOperation()")
+    public Object recordServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        event.exception = NO_EXCEPTION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation(joinPoint);
+                event.commit();
+            }
+        }
+    }
+
+    private static String operation(ProceedingJoinPoint joinPoint) {
+        return AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName() + "."
+                + joinPoint.getSignature().getName();
+    }
+
+    private static int rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return 1;
+    }
+}
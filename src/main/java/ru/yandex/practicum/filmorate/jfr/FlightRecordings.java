@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Flight recordings started from inside the application, with the JDK's {@code default} (about 1% overhead) or
+ * {@code profile} settings; the Filmorate events are enabled in both. Recordings keep a rolling window of
+ * {@code max-age} on disk and are dumped on request into {@code dump-directory}, where only the newest
+ * {@code max-dumps} dumps are kept. At most {@code max-recordings} run at once; further starts are rejected. With
+ * {@code start-on-startup} a recording starts as soon as the application is ready.
+ */
+@Component
+@Slf4j
+public class FlightRecordings {
+
+    private final Path dumpDirectory;
+    private final String defaultSettings;
+    private final Duration maxAge;
+    private final boolean startOnStartup;
+    private final int maxRecordings;
+    private final int maxDumps;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public FlightRecordings(@Value("${filmorate.jfr.dump-directory:recordings}") String dumpDirectory,
+                            @Value("${filmorate.jfr.settings:default}") String defaultSettings,
+                            @Value("${filmorate.jfr.max-age-minutes:30}") long maxAgeMinutes,
+                            @Value("${filmorate.jfr.start-on-startup:false}") boolean startOnStartup,
+                            @Value("${filmorate.jfr.max-recordings:2}") int maxRecordings,
+                            @Value("${filmorate.jfr.max-dumps:10}") int maxDumps) {
+        this.dumpDirectory = Paths.get(dumpDirectory);
+        this.defaultSettings = defaultSettings;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.startOnStartup = startOnStartup;
+        this.maxRecordings = maxRecordings;
+        this.maxDumps = Math.max(1, maxDumps);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (startOnStartup) {
+            start(defaultSettings);
+        }
+    }
+
+    public synchronized Info start(String settings) {
+        if (recordings.size() >= maxRecordings) {
+            throw new OverloadedException(String.format("At most %d flight recordings can run at once.",
+                    maxRecordings));
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot read JFR settings " + settings + ".", e);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName("filmorate-" + settings + "-" + Instant.now().toEpochMilli());
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Started flight recording {} with {} settings.", recording.getName(), settings);
+        return info(recording, null);
+    }
+
+    public synchronized Info dump(long id) {
+        Recording recording = require(id);
+        Path file = dumpDirectory.resolve(recording.getName() + "-" + Instant.now().toEpochMilli() + ".jfr");
+        try {
+            Files.createDirectories(dumpDirectory);
+            recording.dump(file);
+            deleteOldDumps();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Dumped flight recording {} to {}.", recording.getName(), file.toAbsolutePath());
+        return info(recording, file);
+    }
+
+    public synchronized Info stop(long id) {
+        Recording recording = require(id);
+        recordings.remove(id);
+        Info info = info(recording, null);
+        recording.close();
+        log.info("Closed flight recording {}.", recording.getName());
+        return info;
+    }
+
+    public List<Info> getRecordings() {
+        return recordings.values().stream()
+                .map(recording -> info(recording, null))
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public synchronized void closeAll() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private void deleteOldDumps() throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            dumps = files.filter(path -> path.getFileName().toString().matches("filmorate-.*\\.jfr"))
+                    .sorted(Comparator.comparing(FlightRecordings::lastModified).thenComparing(Path::getFileName))
+                    .collect(Collectors.toList());
+        }
+        for (Path old : dumps.subList(0, Math.max(0, dumps.size() - maxDumps))) {
+            Files.deleteIfExists(old);
+            log.info("Deleted old flight recording dump {}.", old.toAbsolutePath());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Recording require(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new NotFoundException(String.format("Flight recording with id %d not found.", id));
+        }
+        return recording;
+    }
+
+    private static Info info(Recording recording, Path dumpedTo) {
+        return Info.builder()
+                .id(recording.getId())
+                .name(recording.getName())
+                .state(recording.getState())
+                .startTime(recording.getStartTime())
+                .size(recording.getSize())
+                .dumpedTo(dumpedTo == null ? null : dumpedTo.toAbsolutePath().toString())
+                .build();
+    }
+
+    @Data
+    @Builder
+    public static class Info {
+
+        private final long id;
+        private final String name;
+        private final RecordingState state;
+        private final Instant startTime;
+        private final long size;
+        private final String dumpedTo;
+    }
+}
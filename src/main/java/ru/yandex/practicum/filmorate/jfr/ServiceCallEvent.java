@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("filmorate.ServiceCall")
+@Label("Service Call")
+@Category({"Filmorate", "Service"})
+@Description("A call to a film or user service operation")
+@StackTrace(false)
+public class ServiceCallEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Exception")
+    String exception;
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.dao.impl.GenreDaoImpl;
+import ru.yandex.practicum.filmorate.dao.impl.MpaDaoImpl;
+import ru.yandex.practicum.filmorate.service.impl.LikeWriteBehindBuffer;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the statistics the admin endpoints already report: the like write-behind buffer and the reference
+ * data caches. Result caches and the connection pool are bound by Spring Boot's own auto-configuration.
+ */
+@Component
+public class FilmorateMetrics implements MeterBinder {
+
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final GenreDaoImpl genreDao;
+    private final MpaDaoImpl mpaDao;
+
+    public FilmorateMetrics(LikeWriteBehindBuffer likeBuffer, GenreDaoImpl genreDao, MpaDaoImpl mpaDao) {
+        this.likeBuffer = likeBuffer;
+        this.genreDao = genreDao;
+        this.mpaDao = mpaDao;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.like.buffer.queue", likeBuffer, buffer -> buffer.getStats().getQueueDepth())
+                .description("Like events waiting to be flushed")
+                .register(registry);
+        likeEvents(registry, "accepted", LikeWriteBehindBuffer.Stats::getAcceptedEvents);
+        likeEvents(registry, "collapsed", LikeWriteBehindBuffer.Stats::getCollapsedEvents);
+        likeEvents(registry, "rejected", LikeWriteBehindBuffer.Stats::getRejectedEvents);
+        likeEvents(registry, "flushed", LikeWriteBehindBuffer.Stats::getFlushedEvents);
+        likeEvents(registry, "retried", LikeWriteBehindBuffer.Stats::getRetriedEvents);
+        likeEvents(registry, "failed", LikeWriteBehindBuffer.Stats::getFailedEvents);
+        FunctionCounter.builder("filmorate.like.buffer.flushes", likeBuffer,
+                        buffer -> buffer.getStats().getFlushes())
+                .register(registry);
+
+        for (ReferenceDataCache<?> cache : List.of(genreDao.getCache(), mpaDao.getCache())) {
+            String name = cache.getStats().getName();
+            Gauge.builder("filmorate.reference.cache.size", cache, c -> c.getStats().getSize())
+                    .tag("cache", name)
+                    .register(registry);
+            referenceCacheRequests(registry, cache, name, "hit", c -> c.getStats().getHits());
+            referenceCacheRequests(registry, cache, name, "miss", c -> c.getStats().getMisses());
+            FunctionCounter.builder("filmorate.reference.cache.loads", cache, c -> c.getStats().getLoads())
+                    .tag("cache", name)
+                    .register(registry);
+        }
+    }
+
+    private void likeEvents(MeterRegistry registry, String result,
+                            ToDoubleFunction<LikeWriteBehindBuffer.Stats> count) {
+        FunctionCounter.builder("filmorate.like.buffer.events", likeBuffer,
+                        buffer -> count.applyAsDouble(buffer.getStats()))
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static void referenceCacheRequests(MeterRegistry registry, ReferenceDataCache<?> cache, String name,
+                                              String result, ToDoubleFunction<ReferenceDataCache<?>> count) {
+        FunctionCounter.builder("filmorate.reference.cache.requests", cache, count)
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the storages, the DAOs and the services. Calls are recorded under
+ * {@code filmorate.dao} or {@code filmorate.service}, tagged with the implementing class, the method and the
+ * exception thrown, if any; the timer's count doubles as the call and error counter. Percentile histograms are
+ * switched on per meter name with {@code management.metrics.distribution.percentiles-histogram}.
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+
+    public static final String DAO_TIMER = "filmorate.dao";
+    public static final String SERVICE_TIMER = "filmorate.service";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private volatile MeterRegistry registry;
+
+    public OperationMetricsAspect(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Pointcut("execution(public * ru.yandex.practicum.filmorate.storage.impl..*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.dao.impl..*(..))")
+    public void dataAccess() {
+    }
+
+    @Pointcut("execution(public * ru.yandex.practicum.filmorate.service.impl.DbFilmService.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.service.impl.DbUserService.*(..))")
+    public void serviceOperation() {
+    }
+
+    @Around("dataAccess()")
+    public Object timeDataAccess(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(DAO_TIMER, joinPoint);
+    }
+
+    @Around("serviceOperation()")
+    public Object timeServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    /**
+     * Resolved on first use: the registry's binders need the very beans this aspect advises.
+     */
+    private MeterRegistry registry() {
+        MeterRegistry current = registry;
+        if (current == null) {
+            current = registryProvider.getObject();
+            registry = current;
+        }
+        return current;
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder(name)
+                    .tag("class", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
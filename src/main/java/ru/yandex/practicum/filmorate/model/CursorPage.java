@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final Long nextCursor;
+
+    public static <T> CursorPage<T> of(List<T> rows, int limit, ToLongFunction<T> cursorOf) {
+        if (rows.size() <= limit) {
+            return CursorPage.<T>builder()
+                    .items(rows)
+                    .build();
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return CursorPage.<T>builder()
+                .items(items)
+                .nextCursor(cursorOf.applyAsLong(items.get(limit - 1)))
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    private final int index;
+    private final Long id;
+    private final Status status;
+    private final List<String> errors;
+
+    public static ImportResult created(int index, long id) {
+        return ImportResult.builder()
+                .index(index)
+                .id(id)
+                .status(Status.CREATED)
+                .build();
+    }
+
+    public static ImportResult rejected(int index, List<String> errors) {
+        return ImportResult.builder()
+                .index(index)
+                .status(Status.REJECTED)
+                .errors(errors)
+                .build();
+    }
+}
@@ -1,20 +1,42 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.SearchField;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmService {
 
     List<Film> getAllFilms();
 
+    CursorPage<Film> getFilmsPage(long after, int limit);
+
+    void exportFilms(Consumer<Film> action);
+
     Film getFilmById(long id);
 
+    String getFilmTag(long id);
+
+    String getFilmsTag();
+
+    String getPopularFilmsTag(Integer genreId);
+
     Film addFilm(Film film);
 
+    List<ImportResult> importFilms(Iterator<Film> records);
+
     Film updateFilm(Film film);
 
-    List<Film> getPopularFilms(Integer count);
+    List<Film> getPopularFilms(Integer count, Integer genreId, Integer year);
+
+    List<Film> searchFilms(String query, Set<SearchField> fields, int limit);
+
+    List<Film> getRecommendations(long userId, int limit);
 
     List<Long> addLike(long filmId, long userId);
 
@@ -1,23 +1,41 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
     List<User> getAllUsers();
 
+    CursorPage<User> getUsersPage(long after, int limit);
+
+    void exportUsers(Consumer<User> action);
+
     User findUserById(long id);
 
+    String getUserTag(long id);
+
+    String getUsersTag();
+
+    boolean existsById(long id);
+
     User addUser(User user);
 
     User updateUser(User user);
 
     List<User> getFriends(long id);
 
+    CursorPage<User> getFriendsPage(long id, long after, int limit);
+
     List<User> getCommonFriends(long id, long otherId);
 
+    int getCommonFriendsCount(long id, long otherId);
+
+    List<User> getFriendRecommendations(long id, int limit);
+
     List<Long> addFriend(long id, long friendId);
 
     List<Long> deleteFriend(long id, long friendId);
@@ -3,57 +3,104 @@ package ru.yandex.practicum.filmorate.service.impl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCaches;
 import ru.yandex.practicum.filmorate.dao.GenreDao;
 import ru.yandex.practicum.filmorate.dao.impl.MpaDaoImpl;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.SearchField;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service("DbFilmService")
 @Slf4j
 public class DbFilmService implements FilmService {
 
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
     private final FilmStorage storage;
     private final GenreDao genreDao;
     private final UserService userService;
     private final MpaDaoImpl mpaStorage;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final Validator validator;
+    private final FilmRecommender recommender;
+    private final EntityVersions versions;
 
     @Autowired
     public DbFilmService(
             @Qualifier("FilmDbStorage") FilmStorage storage,
             GenreDao genreDao,
             @Qualifier("DbUserService") UserService userService,
-            MpaDaoImpl mpaStorage
+            MpaDaoImpl mpaStorage,
+            LikeWriteBehindBuffer likeBuffer,
+            Validator validator,
+            FilmRecommender recommender,
+            EntityVersions versions
     ) {
         this.storage = storage;
         this.genreDao = genreDao;
         this.userService = userService;
         this.mpaStorage = mpaStorage;
+        this.likeBuffer = likeBuffer;
+        this.validator = validator;
+        this.recommender = recommender;
+        this.versions = versions;
     }
 
     @Override
     public List<Film> getAllFilms() {
-        List<Film> films = storage.getAllFilms();
-
-        for (Film film : films) {
-            List<Genre> genres = genreDao.getGenresByFilm(film.getId());
-            film.setGenres(genres);
+        return hydrate(storage.getAllFilms());
+    }
 
-            Mpa mpa = mpaStorage.findMpaById(film.getMpa().getId());
-            film.setMpa(mpa);
-        }
+    @Override
+    public CursorPage<Film> getFilmsPage(long after, int limit) {
+        CursorPage<Film> page = CursorPage.of(storage.getFilmsAfter(after, limit + 1), limit, Film::getId);
+        hydrate(page.getItems());
+        return page;
+    }
 
-        return films;
+    @Override
+    public void exportFilms(Consumer<Film> action) {
+        List<Film> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        storage.forEachFilm(film -> {
+            chunk.add(film);
+            if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                hydrate(chunk).forEach(action);
+                chunk.clear();
+            }
+        });
+        hydrate(chunk).forEach(action);
     }
 
     @Override
+    @Cacheable(cacheNames = ResponseCaches.FILMS, key = "@entityVersions.filmTag(#id)", sync = true)
     public Film getFilmById(long id) {
         Film film = storage.getFilmById(id);
         genreDao.getGenresByFilm(film.getId())
@@ -61,37 +108,226 @@ public class DbFilmService implements FilmService {
         return film;
     }
 
+    @Override
+    public String getFilmTag(long id) {
+        if (!storage.existsById(id)) {
+            log.warn("Movie with id {} not found.", id);
+            throw new NotFoundException(String.format("Movie with id %d not found.", id));
+        }
+        return versions.filmTag(id);
+    }
+
+    @Override
+    public String getFilmsTag() {
+        return versions.filmsTag();
+    }
+
+    @Override
+    public String getPopularFilmsTag(Integer genreId) {
+        if (genreId != null) {
+            genreDao.getGenreById(genreId);
+        }
+        return versions.filmsTag();
+    }
+
     @Override
     public Film addFilm(Film film) {
         return storage.addFilm(film);
     }
 
     @Override
+    public List<ImportResult> importFilms(Iterator<Film> records) {
+        Set<Integer> mpaIds = mpaStorage.getMpaList().stream()
+                .map(Mpa::getId)
+                .collect(Collectors.toSet());
+        Set<Integer> genreIds = genreDao.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
+        List<ImportResult> results = new ArrayList<>();
+        List<Film> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        boolean previousUnreadable = false;
+        for (int index = 0; ; index++) {
+            try {
+                if (!records.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Import stopped at record {}: {}", index, e.getMessage());
+                if (!previousUnreadable) {
+                    results.add(ImportResult.rejected(index, List.of("Malformed input: " + e.getMessage())));
+                }
+                break;
+            }
+            Film film;
+            try {
+                film = records.next();
+                previousUnreadable = false;
+            } catch (RuntimeException e) {
+                results.add(ImportResult.rejected(index, List.of("Unreadable record: " + e.getMessage())));
+                previousUnreadable = true;
+                continue;
+            }
+            List<String> errors = validateImported(film, mpaIds, genreIds);
+            if (!errors.isEmpty()) {
+                results.add(ImportResult.rejected(index, errors));
+                continue;
+            }
+            chunk.add(film);
+            chunkIndexes.add(index);
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunk(chunk, chunkIndexes, results);
+            }
+        }
+        importChunk(chunk, chunkIndexes, results);
+        results.sort(Comparator.comparingInt(ImportResult::getIndex));
+        log.info("Imported {} movies, {} records rejected",
+                results.stream().filter(result -> result.getStatus() == ImportResult.Status.CREATED).count(),
+                results.stream().filter(result -> result.getStatus() == ImportResult.Status.REJECTED).count());
+        return results;
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ResponseCaches.FILMS, key = "@entityVersions.filmTag(#film.id)",
+                    beforeInvocation = true),
+            @CacheEvict(cacheNames = ResponseCaches.POPULAR_FILMS, allEntries = true, beforeInvocation = true)
+    })
     public Film updateFilm(Film film) {
         return storage.updateFilm(film);
     }
 
     @Override
-    public List<Film> getPopularFilms(Integer count) {
-        return storage.getPopularFilms(count).stream()
-                .peek(film -> genreDao.getGenresByFilm(film.getId())
-                        .forEach(film::addGenre))
-                .collect(Collectors.toList());
+    @Cacheable(cacheNames = ResponseCaches.POPULAR_FILMS, sync = true,
+            key = "@entityVersions.filmsTag() + ':' + #count + ':' + #genreId + ':' + #year")
+    public List<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
+        if (genreId != null) {
+            genreDao.getGenreById(genreId);
+        }
+        return hydrate(storage.getPopularFilms(count, genreId, year));
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, Set<SearchField> fields, int limit) {
+        return hydrate(storage.searchFilms(query, fields, limit));
     }
 
     @Override
+    public List<Film> getRecommendations(long userId, int limit) {
+        if (!userService.existsById(userId)) {
+            log.warn("User with id {} not found", userId);
+            throw new NotFoundException(String.format("User with id %d not found", userId));
+        }
+        long[] recommended = recommender.recommend(userId, limit);
+        return hydrate(storage.getFilmsByIds(Arrays.stream(recommended)
+                .boxed()
+                .collect(Collectors.toList())));
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ResponseCaches.FILMS, key = "@entityVersions.filmTag(#filmId)",
+                    beforeInvocation = true),
+            @CacheEvict(cacheNames = ResponseCaches.POPULAR_FILMS, allEntries = true, beforeInvocation = true)
+    })
     public List<Long> addLike(long filmId, long userId) {
-        getFilmById(filmId);
-        userService.findUserById(userId);
-        storage.addLike(filmId, userId);
+        validateLike(filmId, userId);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(filmId, userId, true);
+            return likeBuffer.getLikesByFilm(filmId);
+        }
+        if (storage.hasLike(filmId, userId)) {
+            log.debug("Repeated like from user with id {} to movie with id {}.", userId, filmId);
+        } else {
+            storage.addLike(filmId, userId);
+            recommender.invalidate(userId);
+        }
         return storage.getLikesByFilm(filmId);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ResponseCaches.FILMS, key = "@entityVersions.filmTag(#filmId)",
+                    beforeInvocation = true),
+            @CacheEvict(cacheNames = ResponseCaches.POPULAR_FILMS, allEntries = true, beforeInvocation = true)
+    })
     public List<Long> deleteLike(long filmId, long userId) {
-        getFilmById(filmId);
-        userService.findUserById(userId);
-        storage.deleteLike(filmId, userId);
+        validateLike(filmId, userId);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(filmId, userId, false);
+            return likeBuffer.getLikesByFilm(filmId);
+        }
+        if (storage.hasLike(filmId, userId)) {
+            storage.deleteLike(filmId, userId);
+            recommender.invalidate(userId);
+        }
         return storage.getLikesByFilm(filmId);
     }
+
+    private void validateLike(long filmId, long userId) {
+        if (!storage.existsById(filmId)) {
+            log.warn("Movie with id {} not found.", filmId);
+            throw new NotFoundException(String.format("Movie with id %d not found.", filmId));
+        }
+        if (!userService.existsById(userId)) {
+            log.warn("User with id {} not found", userId);
+            throw new NotFoundException(String.format("User with id %d not found", userId));
+        }
+    }
+
+    private List<String> validateImported(Film film, Set<Integer> mpaIds, Set<Integer> genreIds) {
+        List<String> errors = new ArrayList<>();
+        if (film == null) {
+            errors.add("Empty record.");
+            return errors;
+        }
+        for (ConstraintViolation<Film> violation : validator.validate(film)) {
+            errors.add(violation.getMessage());
+        }
+        if (film.getMpa() == null) {
+            errors.add("MPA rating missing.");
+        } else if (!mpaIds.contains(film.getMpa().getId())) {
+            errors.add(String.format("MPA rating with id %d not found", film.getMpa().getId()));
+        }
+        film.getGenres().stream()
+                .map(Genre::getId)
+                .filter(genreId -> !genreIds.contains(genreId))
+                .distinct()
+                .forEach(genreId -> errors.add(String.format("Genre with id %d not found.", genreId)));
+        return errors;
+    }
+
+    private void importChunk(List<Film> chunk, List<Integer> chunkIndexes, List<ImportResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            storage.addFilms(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(ImportResult.created(chunkIndexes.get(i), chunk.get(i).getId()));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Import chunk of {} movies rolled back: {}", chunk.size(), e.getMostSpecificCause().getMessage());
+            List<String> errors = List.of("Batch rolled back: " + e.getMostSpecificCause().getMessage());
+            chunkIndexes.forEach(index -> results.add(ImportResult.rejected(index, errors)));
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private List<Film> hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, List<Genre>> genresByFilm = genreDao.getGenresByFilms(films.stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+        Map<Integer, Mpa> mpaById = mpaStorage.getMpaList().stream()
+                .collect(Collectors.toMap(Mpa::getId, Function.identity()));
+        for (Film film : films) {
+            film.setGenres(genresByFilm.getOrDefault(film.getId(), Collections.emptyList()));
+            film.setMpa(mpaById.getOrDefault(film.getMpa().getId(), film.getMpa()));
+        }
+        return films;
+    }
 }
\ No newline at end of file
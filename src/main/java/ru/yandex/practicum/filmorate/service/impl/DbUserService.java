@@ -2,14 +2,22 @@ package ru.yandex.practicum.filmorate.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCaches;
 import ru.yandex.practicum.filmorate.dao.FriendshipDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service("DbUserService")
@@ -18,10 +26,19 @@ public class DbUserService implements UserService {
 
     private final UserStorage storage;
     private final FriendshipDao friendshipDao;
+    private final FriendRecommender friendRecommender;
+    private final EntityVersions versions;
 
-    public DbUserService(@Qualifier("UserDbStorage") UserStorage storage, FriendshipDao friendshipDao) {
+    public DbUserService(
+            @Qualifier("UserDbStorage") UserStorage storage,
+            FriendshipDao friendshipDao,
+            FriendRecommender friendRecommender,
+            EntityVersions versions
+    ) {
         this.storage = storage;
         this.friendshipDao = friendshipDao;
+        this.friendRecommender = friendRecommender;
+        this.versions = versions;
     }
 
     @Override
@@ -30,43 +47,92 @@ public class DbUserService implements UserService {
     }
 
     @Override
+    public CursorPage<User> getUsersPage(long after, int limit) {
+        return CursorPage.of(storage.getUsersAfter(after, limit + 1), limit, User::getId);
+    }
+
+    @Override
+    public void exportUsers(Consumer<User> action) {
+        storage.forEachUser(action);
+    }
+
+    @Override
+    @Cacheable(cacheNames = ResponseCaches.USERS, key = "@entityVersions.userTag(#id)", sync = true)
     public User findUserById(long id) {
         return storage.findUserById(id);
     }
 
+    @Override
+    public String getUserTag(long id) {
+        requireUser(id);
+        return versions.userTag(id);
+    }
+
+    @Override
+    public String getUsersTag() {
+        return versions.usersTag();
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return storage.existsById(id);
+    }
+
     @Override
     public User addUser(User user) {
         return storage.addUser(user);
     }
 
     @Override
+    @CacheEvict(cacheNames = ResponseCaches.USERS, key = "@entityVersions.userTag(#user.id)", beforeInvocation = true)
     public User updateUser(User user) {
         return storage.updateUser(user);
     }
 
     @Override
     public List<User> getFriends(long id) {
-        return friendshipDao.getFriendsByUser(id).stream()
-                .map(this::findUserById)
-                .collect(Collectors.toList());
+        return friendshipDao.getFriendUsersByUser(id);
+    }
+
+    @Override
+    public CursorPage<User> getFriendsPage(long id, long after, int limit) {
+        return CursorPage.of(friendshipDao.getFriendUsersAfter(id, after, limit + 1), limit, User::getId);
     }
 
     @Override
     public List<User> getCommonFriends(long id, long otherId) {
-        findUserById(id);
-        findUserById(otherId);
-        return friendshipDao.getFriendsByUser(id).stream()
-                .filter(friendshipDao.getFriendsByUser(otherId)::contains)
-                .map(this::findUserById)
-                .collect(Collectors.toList());
+        requireUser(id);
+        requireUser(otherId);
+        return friendshipDao.getCommonFriendUsers(id, otherId);
+    }
+
+    @Override
+    public int getCommonFriendsCount(long id, long otherId) {
+        requireUser(id);
+        requireUser(otherId);
+        return friendshipDao.getCommonFriendsCount(id, otherId);
     }
 
     @Override
+    public List<User> getFriendRecommendations(long id, int limit) {
+        requireUser(id);
+        long[] recommended = friendRecommender.recommend(id, limit);
+        return storage.getUsersByIds(Arrays.stream(recommended)
+                .boxed()
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ResponseCaches.USERS, key = "@entityVersions.userTag(#id)", beforeInvocation = true),
+            @CacheEvict(cacheNames = ResponseCaches.USERS, key = "@entityVersions.userTag(#friendId)",
+                    beforeInvocation = true)
+    })
     public List<Long> addFriend(long id, long friendId) {
-        findUserById(id);
-        findUserById(friendId);
-        boolean isUserToFriend = friendshipDao.getFriendsByUser(id).contains(friendId);
-        boolean isFriendToUser = friendshipDao.getFriendsByUser(friendId).contains(id);
+        requireUser(id);
+        requireUser(friendId);
+        boolean isUserToFriend = friendshipDao.isFriend(id, friendId);
+        boolean isFriendToUser = friendshipDao.isFriend(friendId, id);
         if (!isUserToFriend && !isFriendToUser) {
             friendshipDao.addFriend(id, friendId);
         } else if (isUserToFriend && !isFriendToUser) {
@@ -78,11 +144,16 @@ public class DbUserService implements UserService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ResponseCaches.USERS, key = "@entityVersions.userTag(#id)", beforeInvocation = true),
+            @CacheEvict(cacheNames = ResponseCaches.USERS, key = "@entityVersions.userTag(#friendId)",
+                    beforeInvocation = true)
+    })
     public List<Long> deleteFriend(long id, long friendId) {
-        findUserById(id);
-        findUserById(friendId);
-        boolean isUserHasFriend = friendshipDao.getFriendsByUser(id).contains(friendId);
-        boolean isFriendHasUser = friendshipDao.getFriendsByUser(friendId).contains(id);
+        requireUser(id);
+        requireUser(friendId);
+        boolean isUserHasFriend = friendshipDao.isFriend(id, friendId);
+        boolean isFriendHasUser = friendshipDao.isFriend(friendId, id);
         if (!isUserHasFriend) {
             log.warn("User c id {} is not a friend of user c id {}.", friendId, id);
             throw new NotFoundException(
@@ -99,4 +170,11 @@ public class DbUserService implements UserService {
         }
         return friendshipDao.getFriendsByUser(id);
     }
+
+    private void requireUser(long id) {
+        if (!storage.existsById(id)) {
+            log.warn("User with id {} not found", id);
+            throw new NotFoundException(String.format("User with id %d not found", id));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.index.LongIntCounter;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * User-based collaborative filtering over the like matrix. The users whose liked films overlap most with the
+ * requester's are found by walking the likers of each liked film, split across a fork-join pool; films those
+ * users liked are then scored by the overlap of whoever liked them. Rankings are cached per user and served
+ * until they are older than {@code max-staleness-ms}, or until a like or unlike of the user has been written.
+ * Invalidation leaves a marker with its time in the cache, so a ranking whose computation started before the
+ * write is returned to its caller but never cached.
+ */
+@Component
+@Slf4j
+public class FilmRecommender {
+
+    private final FilmStorage storage;
+    private final long maxStalenessNanos;
+    private final int similarUsers;
+    private final int maxCandidates;
+    private final int maxResults;
+    private final int splitSize;
+    private final ForkJoinPool pool;
+    private final Map<Long, Ranking> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public FilmRecommender(
+            @Qualifier("FilmDbStorage") FilmStorage storage,
+            @Value("${filmorate.recommendations.films.max-staleness-ms:60000}") long maxStalenessMs,
+            @Value("${filmorate.recommendations.films.similar-users:50}") int similarUsers,
+            @Value("${filmorate.recommendations.films.max-candidates:100000}") int maxCandidates,
+            @Value("${filmorate.recommendations.films.max-results:100}") int maxResults,
+            @Value("${filmorate.recommendations.films.split-size:16}") int splitSize,
+            @Value("${filmorate.recommendations.films.cache-size:10000}") int cacheSize,
+            @Value("${filmorate.recommendations.films.parallelism:0}") int parallelism
+    ) {
+        this.storage = storage;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+        this.similarUsers = similarUsers;
+        this.maxCandidates = maxCandidates;
+        this.maxResults = maxResults;
+        this.splitSize = Math.max(1, splitSize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Ranking> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public long[] recommend(long userId, int limit) {
+        long now = System.nanoTime();
+        Ranking ranking;
+        synchronized (cache) {
+            ranking = cache.get(userId);
+        }
+        if (ranking != null && ranking.films != null && now - ranking.computedAt < maxStalenessNanos) {
+            hits.increment();
+        } else {
+            misses.increment();
+            ranking = new Ranking(rank(userId), now);
+            synchronized (cache) {
+                Ranking current = cache.get(userId);
+                if (current == null || current.computedAt - now < 0) {
+                    cache.put(userId, ranking);
+                }
+            }
+        }
+        return Arrays.copyOf(ranking.films, Math.min(limit, ranking.films.length));
+    }
+
+    public void invalidate(long userId) {
+        synchronized (cache) {
+            cache.put(userId, new Ranking(null, System.nanoTime()));
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        return Stats.builder()
+                .size(size)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    private long[] rank(long userId) {
+        long started = System.nanoTime();
+        long[] liked = storage.getLikedFilmIds(userId);
+        if (liked.length == 0) {
+            return liked;
+        }
+        OverlapTask task = new OverlapTask(userId, liked, 0, liked.length);
+        LongIntCounter overlaps = liked.length <= splitSize ? task.compute() : pool.invoke(task);
+        overlaps.retainTop(maxCandidates);
+
+        LongIntCounter scores = new LongIntCounter(Integer.MAX_VALUE);
+        for (long similarUser : overlaps.top(similarUsers, id -> false)) {
+            int overlap = overlaps.get(similarUser);
+            for (long filmId : storage.getLikedFilmIds(similarUser)) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.add(filmId, overlap);
+                }
+            }
+        }
+        scores.retainTop(maxCandidates);
+        long[] films = scores.top(maxResults, filmId -> false);
+        log.debug("Film recommendations for user {}: {} liked films, {} similar users, {} ms", userId, liked.length,
+                overlaps.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return films;
+    }
+
+    private static class Ranking {
+
+        private final long[] films;
+        private final long computedAt;
+
+        private Ranking(long[] films, long computedAt) {
+            this.films = films;
+            this.computedAt = computedAt;
+        }
+    }
+
+    private class OverlapTask extends RecursiveTask<LongIntCounter> {
+
+        private final long userId;
+        private final long[] films;
+        private final int from;
+        private final int to;
+
+        private OverlapTask(long userId, long[] films, int from, int to) {
+            this.userId = userId;
+            this.films = films;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongIntCounter compute() {
+            if (to - from > splitSize) {
+                int middle = (from + to) >>> 1;
+                OverlapTask left = new OverlapTask(userId, films, from, middle);
+                left.fork();
+                LongIntCounter right = new OverlapTask(userId, films, middle, to).compute();
+                LongIntCounter merged = left.join();
+                merged.addAll(right);
+                return merged;
+            }
+            LongIntCounter overlaps = new LongIntCounter(Integer.MAX_VALUE);
+            for (int i = from; i < to; i++) {
+                for (long liker : storage.getLikerIds(films[i])) {
+                    if (liker != userId) {
+                        overlaps.increment(liker);
+                    }
+                }
+            }
+            return overlaps;
+        }
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+
+        private final int size;
+        private final long hits;
+        private final long misses;
+    }
+}
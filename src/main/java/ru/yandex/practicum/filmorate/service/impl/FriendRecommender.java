@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.FriendshipDao;
+import ru.yandex.practicum.filmorate.index.LongIntCounter;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ranks users who are not yet friends by the number of the user's friends that list them as a friend, ties
+ * broken by the lower id. With the friend graph loaded, friend lists are scanned on a dedicated fork-join pool
+ * in slices of {@code split-size} friends; every slice counts into its own primitive counter, skipping the user
+ * and current friends, and the counters are merged on join. Scanning stops at the time budget. The merged counter
+ * keeps only the {@code max-candidates} best candidates, so no more are ever returned, and without the graph the
+ * single ranking query is limited the same way.
+ */
+@Component
+@Slf4j
+public class FriendRecommender {
+
+    private final FriendshipDao friendshipDao;
+    private final long timeBudgetNanos;
+    private final int maxCandidates;
+    private final int splitSize;
+    private final ForkJoinPool pool;
+
+    public FriendRecommender(
+            FriendshipDao friendshipDao,
+            @Value("${filmorate.recommendations.friends.time-budget-ms:50}") long timeBudgetMs,
+            @Value("${filmorate.recommendations.friends.max-candidates:100000}") int maxCandidates,
+            @Value("${filmorate.recommendations.friends.split-size:64}") int splitSize,
+            @Value("${filmorate.recommendations.friends.parallelism:0}") int parallelism
+    ) {
+        this.friendshipDao = friendshipDao;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        this.maxCandidates = maxCandidates;
+        this.splitSize = Math.max(1, splitSize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public long[] recommend(long userId, int limit) {
+        if (!friendshipDao.isGraphLoaded()) {
+            return friendshipDao.getFriendRecommendationIds(userId, Math.min(limit, maxCandidates));
+        }
+        long started = System.nanoTime();
+        long[] friends = friendshipDao.getFriendIds(userId);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScoreTask task = new ScoreTask(userId, friends, 0, friends.length, started + timeBudgetNanos, timedOut);
+        LongIntCounter scores = friends.length <= splitSize ? task.compute() : pool.invoke(task);
+        int candidates = scores.size();
+        scores.retainTop(maxCandidates);
+        long[] recommended = scores.top(limit, candidate -> false);
+        log.debug("Friend recommendations for user {}: {} friends, {} candidates, {} ms{}", userId, friends.length,
+                candidates, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                timedOut.get() ? ", time budget exhausted" : "");
+        return recommended;
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    private class ScoreTask extends RecursiveTask<LongIntCounter> {
+
+        private final long userId;
+        private final long[] friends;
+        private final int from;
+        private final int to;
+        private final long deadline;
+        private final AtomicBoolean timedOut;
+
+        private ScoreTask(long userId, long[] friends, int from, int to, long deadline, AtomicBoolean timedOut) {
+            this.userId = userId;
+            this.friends = friends;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+            this.timedOut = timedOut;
+        }
+
+        @Override
+        protected LongIntCounter compute() {
+            if (to - from > splitSize) {
+                int middle = (from + to) >>> 1;
+                ScoreTask left = new ScoreTask(userId, friends, from, middle, deadline, timedOut);
+                left.fork();
+                LongIntCounter right = new ScoreTask(userId, friends, middle, to, deadline, timedOut).compute();
+                LongIntCounter merged = left.join();
+                merged.addAll(right);
+                return merged;
+            }
+            LongIntCounter scores = new LongIntCounter(Integer.MAX_VALUE);
+            for (int i = from; i < to; i++) {
+                if (System.nanoTime() - deadline >= 0) {
+                    timedOut.set(true);
+                    break;
+                }
+                for (long candidate : friendshipDao.getFriendIds(friends[i])) {
+                    if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                        scores.increment(candidate);
+                    }
+                }
+            }
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind mode for likes. Like and unlike events are collapsed per (film, user) pair in a
+ * bounded buffer, the last event winning, and written with JDBC batches when the buffer reaches the batch
+ * size or the flush interval elapses. Events being written still count against the capacity, and a full buffer
+ * blocks callers for up to the offer timeout and then rejects the event. A failed write puts its events back in
+ * front of the buffer, unless a newer event for the same pair arrived meanwhile, and the next scheduled flush
+ * backs off exponentially; an event is only given up and counted as failed after {@code max-attempts} writes.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehindBuffer {
+
+    private final FilmStorage storage;
+    private final FilmRecommender recommender;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private Map<Like, Boolean> pending = new LinkedHashMap<>();
+    private int inFlight;
+    private final Map<Long, Map<Long, Boolean>> unwrittenByFilm = new HashMap<>();
+    private final Map<Like, Integer> attempts = new HashMap<>();
+    private ScheduledExecutorService flusher;
+    private int consecutiveFailures;
+    private volatile long retryAtNanos = System.nanoTime();
+
+    private final LongAdder acceptedEvents = new LongAdder();
+    private final LongAdder collapsedEvents = new LongAdder();
+    private final LongAdder rejectedEvents = new LongAdder();
+    private final LongAdder flushedEvents = new LongAdder();
+    private final LongAdder retriedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public LikeWriteBehindBuffer(
+            @Qualifier("FilmDbStorage") FilmStorage storage,
+            FilmRecommender recommender,
+            @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+            @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+            @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+            @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+            @Value("${filmorate.likes.write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${filmorate.likes.write-behind.retry-backoff-ms:500}") long retryBackoffMs
+    ) {
+        this.storage = storage;
+        this.recommender = recommender;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likes-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushIfDue, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Write-behind for likes enabled: capacity {}, batch size {}, flush interval {} ms.",
+                capacity, batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(offerTimeoutMs, TimeUnit.MILLISECONDS);
+        flush();
+        log.info("Write-behind for likes stopped, {} events flushed in total.", flushedEvents.sum());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(long filmId, long userId, boolean liked) {
+        Like like = Like.builder().filmId(filmId).userId(userId).build();
+        lock.lock();
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            while (!pending.containsKey(like) && pending.size() + inFlight >= capacity) {
+                requestFlush();
+                if (remainingNanos <= 0) {
+                    rejectedEvents.increment();
+                    throw new OverloadedException("Like buffer is full, please retry later.");
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            if (pending.put(like, liked) != null) {
+                collapsedEvents.increment();
+            }
+            attempts.remove(like);
+            unwrittenByFilm.computeIfAbsent(filmId, id -> new HashMap<>()).put(userId, liked);
+            acceptedEvents.increment();
+            if (pending.size() >= batchSize) {
+                requestFlush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedEvents.increment();
+            throw new OverloadedException("Interrupted while waiting for space in the like buffer.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Long> getLikesByFilm(long filmId) {
+        Map<Long, Boolean> overlay;
+        lock.lock();
+        try {
+            overlay = new HashMap<>(unwrittenByFilm.getOrDefault(filmId, Map.of()));
+        } finally {
+            lock.unlock();
+        }
+        TreeSet<Long> likes = new TreeSet<>(storage.getLikesByFilm(filmId));
+        overlay.forEach((userId, liked) -> {
+            if (liked) {
+                likes.add(userId);
+            } else {
+                likes.remove(userId);
+            }
+        });
+        return new ArrayList<>(likes);
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<Like, Boolean> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                inFlight = batch.size();
+            } finally {
+                lock.unlock();
+            }
+            boolean written = write(batch);
+            lock.lock();
+            try {
+                if (written) {
+                    batch.keySet().forEach(this::settle);
+                } else {
+                    requeue(batch);
+                }
+                inFlight = 0;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (written) {
+                batch.keySet().forEach(like -> recommender.invalidate(like.getUserId()));
+                consecutiveFailures = 0;
+                retryAtNanos = System.nanoTime();
+            } else {
+                long backoffMs = retryBackoffMs << Math.min(consecutiveFailures++, 6);
+                retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        int queueDepth;
+        lock.lock();
+        try {
+            queueDepth = pending.size();
+        } finally {
+            lock.unlock();
+        }
+        long flushCount = flushes.sum();
+        return Stats.builder()
+                .enabled(enabled)
+                .capacity(capacity)
+                .queueDepth(queueDepth)
+                .acceptedEvents(acceptedEvents.sum())
+                .collapsedEvents(collapsedEvents.sum())
+                .rejectedEvents(rejectedEvents.sum())
+                .flushedEvents(flushedEvents.sum())
+                .retriedEvents(retriedEvents.sum())
+                .failedEvents(failedEvents.sum())
+                .flushes(flushCount)
+                .lastFlushMillis(lastFlushNanos / 1_000_000.0)
+                .maxFlushMillis(maxFlushNanos / 1_000_000.0)
+                .averageFlushMillis(flushCount == 0 ? 0 : flushNanos.sum() / 1_000_000.0 / flushCount)
+                .build();
+    }
+
+    private boolean write(Map<Like, Boolean> batch) {
+        List<Like> added = new ArrayList<>();
+        List<Like> removed = new ArrayList<>();
+        batch.forEach((like, liked) -> (liked ? added : removed).add(like));
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            for (int from = 0; from < removed.size(); from += batchSize) {
+                storage.deleteLikes(removed.subList(from, Math.min(from + batchSize, removed.size())));
+            }
+            for (int from = 0; from < added.size(); from += batchSize) {
+                storage.addLikes(added.subList(from, Math.min(from + batchSize, added.size())));
+            }
+            flushedEvents.add(batch.size());
+            written = true;
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} like events, they will be retried.", batch.size(), e);
+        }
+        long elapsed = System.nanoTime() - start;
+        flushes.increment();
+        flushNanos.add(elapsed);
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        log.debug("Flushed {} like events in {} ms.", batch.size(), elapsed / 1_000_000);
+        return written;
+    }
+
+    private void requeue(Map<Like, Boolean> batch) {
+        Map<Like, Boolean> retry = new LinkedHashMap<>();
+        batch.forEach((like, liked) -> {
+            if (pending.containsKey(like)) {
+                return;
+            }
+            if (attempts.merge(like, 1, Integer::sum) >= maxAttempts) {
+                failedEvents.increment();
+                settle(like);
+                log.error("Giving up on like event {} = {} after {} attempts.", like, liked, maxAttempts);
+            } else {
+                retry.put(like, liked);
+            }
+        });
+        retriedEvents.add(retry.size());
+        retry.putAll(pending);
+        pending = retry;
+    }
+
+    private void settle(Like like) {
+        attempts.remove(like);
+        if (pending.containsKey(like)) {
+            return;
+        }
+        Map<Long, Boolean> unwritten = unwrittenByFilm.get(like.getFilmId());
+        if (unwritten != null) {
+            unwritten.remove(like.getUserId());
+            if (unwritten.isEmpty()) {
+                unwrittenByFilm.remove(like.getFilmId());
+            }
+        }
+    }
+
+    private void flushIfDue() {
+        flushRequested.set(false);
+        if (System.nanoTime() - retryAtNanos >= 0) {
+            flush();
+        }
+    }
+
+    private void requestFlush() {
+        if (flusher != null && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushIfDue);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+
+        private final boolean enabled;
+        private final int capacity;
+        private final int queueDepth;
+        private final long acceptedEvents;
+        private final long collapsedEvents;
+        private final long rejectedEvents;
+        private final long flushedEvents;
+        private final long retriedEvents;
+        private final long failedEvents;
+        private final long flushes;
+        private final double lastFlushMillis;
+        private final double maxFlushMillis;
+        private final double averageFlushMillis;
+    }
+}
@@ -1,23 +1,52 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.SearchField;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     List<Film> getAllFilms();
 
+    List<Film> getFilmsAfter(long afterId, int limit);
+
+    void forEachFilm(Consumer<Film> action);
+
     List<Film> getPopularFilms(int count);
 
+    List<Film> getPopularFilms(int count, Integer genreId, Integer year);
+
+    List<Film> getFilmsByIds(List<Long> ids);
+
+    List<Film> searchFilms(String query, Set<SearchField> fields, int limit);
+
     List<Long> getLikesByFilm(long filmId);
 
+    long[] getLikerIds(long filmId);
+
+    long[] getLikedFilmIds(long userId);
+
+    boolean hasLike(long filmId, long userId);
+
+    int getLikesCount(long filmId);
+
+    List<Long> getCommonLikes(long filmId, long otherFilmId);
+
     Film addFilm(Film film);
 
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     Film getFilmById(long id);
 
+    boolean existsById(long id);
+
     void deleteGenreFromFilm(long filmId, int genreId);
 
     void clearGenresFromFilm(long filmId);
@@ -27,4 +56,8 @@ public interface FilmStorage {
     void deleteLike(long filmId, long userId);
 
     void addLike(long filmId, long userId);
+
+    void addLikes(Collection<Like> likes);
+
+    void deleteLikes(Collection<Like> likes);
 }
\ No newline at end of file
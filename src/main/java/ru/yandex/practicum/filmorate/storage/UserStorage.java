@@ -3,14 +3,23 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
     List<User> getAllUsers();
 
+    List<User> getUsersAfter(long afterId, int limit);
+
+    void forEachUser(Consumer<User> action);
+
     User addUser(User user);
 
     User updateUser(User user);
 
     User findUserById(long id);
+
+    List<User> getUsersByIds(List<Long> ids);
+
+    boolean existsById(long id);
 }
\ No newline at end of file
@@ -4,34 +4,143 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
 import ru.yandex.practicum.filmorate.dao.AbstractDao;
+import ru.yandex.practicum.filmorate.dao.mapper.FilmRowMapper;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.index.CompressedIntSet;
+import ru.yandex.practicum.filmorate.index.DenseIdSet;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.IndexWriteGate;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.PopularityFacets;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.SearchField;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Repository("FilmDbStorage")
 @Slf4j
-public class FilmDbStorage extends AbstractDao implements FilmStorage {
+public class FilmDbStorage extends AbstractDao implements FilmStorage, RebuildableIndex {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final FilmRowMapper filmRowMapper = new FilmRowMapper();
     private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final PopularityLeaderboard leaderboard = new PopularityLeaderboard();
+    private final PopularityFacets facets = new PopularityFacets();
+    private final LikeIndex likeIndex = new LikeIndex();
+    private final DenseIdSet filmIds = new DenseIdSet();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final EntityVersions versions;
+    private final IndexWriteGate gate;
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, EntityVersions versions, IndexWriteGate gate) {
         super(jdbcTemplate);
+        this.versions = versions;
+        this.gate = gate;
+    }
+
+    @Override
+    public void rebuild() {
+        gate.rebuild(this::loadIndexes);
+    }
+
+    private void loadIndexes() {
+        String countLikes = "SELECT f.film_id, f.release_date, COUNT(l.user_id) AS likes_qty FROM films AS f " +
+                "LEFT JOIN likes AS l ON f.film_id = l.film_id GROUP BY f.film_id, f.release_date";
+        Map<Long, Long> likesByFilm = new HashMap<>();
+        Map<Long, Integer> yearByFilm = new HashMap<>();
+        jdbcTemplate.query(countLikes, (RowCallbackHandler) rs -> {
+            likesByFilm.put(rs.getLong("film_id"), rs.getLong("likes_qty"));
+            yearByFilm.put(rs.getLong("film_id"), rs.getDate("release_date").toLocalDate().getYear());
+        });
+        leaderboard.load(likesByFilm);
+        filmIds.load(likesByFilm.keySet().stream().mapToLong(Long::longValue).toArray());
+
+        String getAllFilmGenres = "SELECT film_id, genre_id FROM film_genre";
+        Map<Long, List<Integer>> genresByFilm = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getAllFilmGenres);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> genresByFilm
+                .computeIfAbsent(rs.getLong("film_id"), filmId -> new ArrayList<>())
+                .add(rs.getInt("genre_id")));
+        facets.load(likesByFilm, yearByFilm, genresByFilm);
+
+        String getAllLikes = "SELECT film_id, user_id FROM likes";
+        Map<Long, CompressedIntSet> likersByFilm = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getAllLikes);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> likersByFilm
+                .computeIfAbsent(rs.getLong("film_id"), filmId -> new CompressedIntSet())
+                .add(rs.getInt("user_id")));
+        likeIndex.load(likersByFilm);
+
+        String getAllTexts = "SELECT film_id, name, description FROM films";
+        FilmSearchIndex.Builder texts = new FilmSearchIndex.Builder();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getAllTexts);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> texts.add(rs.getLong("film_id"), rs.getString("name"),
+                rs.getString("description")));
+        searchIndex.load(texts);
+        log.info("Film search index loaded: {} tokens, {} bytes", searchIndex.tokenCount(), searchIndex.sizeInBytes());
     }
 
     @Override
     public List<Film> getAllFilms() {
         String getAllFilms = "SELECT f.*, m.name AS mpa_name FROM films AS f JOIN mpa AS m ON f.mpa_id = m.mpa_id";
-        return jdbcTemplate.query(getAllFilms, (rs, rowNum) -> mapRowToFilm(rs));
+        return jdbcTemplate.query(getAllFilms, filmRowMapper);
+    }
+
+    @Override
+    public List<Film> getFilmsAfter(long afterId, int limit) {
+        String getFilmsAfter = "SELECT f.*, m.name AS mpa_name FROM films AS f JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
+                "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?";
+        return jdbcTemplate.query(getFilmsAfter, filmRowMapper, afterId, limit);
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        String getAllFilms = "SELECT f.*, m.name AS mpa_name FROM films AS f JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
+                "ORDER BY f.film_id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getAllFilms);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(filmRowMapper.mapRow(rs, 0)));
     }
 
     @Override
@@ -39,7 +148,7 @@ public class FilmDbStorage extends AbstractDao implements FilmStorage {
         String getFilmById = "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa m ON f.mpa_id = m.mpa_id " +
                 "WHERE f.film_id = ?";
         try {
-            return jdbcTemplate.queryForObject(getFilmById, (rs, rowNum) -> mapRowToFilm(rs), id);
+            return jdbcTemplate.queryForObject(getFilmById, filmRowMapper, id);
         } catch (EmptyResultDataAccessException e) {
             log.warn("Movie with id {} not found.", id);
             throw new NotFoundException(String.format("Movie with id %d not found.", id));
@@ -47,10 +156,26 @@ public class FilmDbStorage extends AbstractDao implements FilmStorage {
     }
 
     @Override
+    public boolean existsById(long id) {
+        if (filmIds.covers(id)) {
+            return filmIds.contains(id);
+        }
+        String existsById = "SELECT COUNT(*) FROM films WHERE film_id = ?";
+        Integer count = jdbcTemplate.queryForObject(existsById, Integer.class, id);
+        if (count != null && count > 0) {
+            filmIds.addProbed(id);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    @Transactional
     public Film addFilm(Film film) {
         if (film.getName().isEmpty()) {
             throw new IllegalArgumentException("Title missing.");
         }
+        gate.join();
 
         SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
                 .withTableName("films")
@@ -58,6 +183,11 @@ public class FilmDbStorage extends AbstractDao implements FilmStorage {
         long id = simpleJdbcInsert.executeAndReturnKey(film.toMap()).longValue();
         film.setId(id);
         film.getGenres().forEach(genre -> addGenreToFilm(id, genre.getId()));
+        leaderboard.addFilm(id);
+        filmIds.add(id);
+        facets.putFilm(id, film.getReleaseDate().getYear(), genreIds(film.getGenres()));
+        searchIndex.add(id, film.getName(), film.getDescription());
+        versions.filmChanged(id);
         try {
             log.debug("Movie {} saved", objectMapper.writeValueAsString(film));
         } catch (JsonProcessingException e) {
@@ -67,10 +197,66 @@ public class FilmDbStorage extends AbstractDao implements FilmStorage {
     }
 
     @Override
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        gate.join();
+        String addFilm = "INSERT INTO films(name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(addFilm, new String[]{"film_id"})) {
+                for (Film film : films) {
+                    statement.setString(1, film.getName());
+                    statement.setString(2, film.getDescription());
+                    statement.setDate(3, Date.valueOf(film.getReleaseDate()));
+                    statement.setInt(4, film.getDuration());
+                    statement.setInt(5, film.getMpa().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                int i = 0;
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next() && i < films.size()) {
+                        films.get(i++).setId(keys.getLong(1));
+                    }
+                }
+                if (i != films.size()) {
+                    throw new IllegalStateException(String.format(
+                            "Expected %d generated film ids, got %d.", films.size(), i));
+                }
+            }
+            return null;
+        });
+
+        List<Object[]> genreRows = new ArrayList<>();
+        for (Film film : films) {
+            film.getGenres().stream()
+                    .map(Genre::getId)
+                    .distinct()
+                    .forEach(genreId -> genreRows.add(new Object[]{film.getId(), genreId}));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genre(film_id, genre_id) VALUES (?, ?)", genreRows);
+
+        films.forEach(film -> {
+            leaderboard.addFilm(film.getId());
+            filmIds.add(film.getId());
+            facets.putFilm(film.getId(), film.getReleaseDate().getYear(), genreIds(film.getGenres()));
+            searchIndex.add(film.getId(), film.getName(), film.getDescription());
+            versions.filmChanged(film.getId());
+        });
+        log.debug("{} movies saved in one batch", films.size());
+        return films;
+    }
+
+    @Override
+    @Transactional
     public Film updateFilm(Film film) {
         String updateFilm = "UPDATE films SET " +
                 "name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? " +
                 "WHERE film_id = ?";
+        gate.join();
+        Map<String, Object> previous = searchIndex.isLoaded() ? getFilmTexts(film.getId()) : null;
         if (jdbcTemplate.update(
                 updateFilm,
                 film.getName(),
@@ -80,79 +266,282 @@ public class FilmDbStorage extends AbstractDao implements FilmStorage {
                 film.getMpa().getId(),
                 film.getId()
         ) > 0) {
-            clearGenresFromFilm(film.getId());
-            film.getGenres().forEach(genre -> addGenreToFilm(film.getId(), genre.getId()));
+            syncGenres(film.getId(), film.getGenres());
+            facets.putFilm(film.getId(), film.getReleaseDate().getYear(), genreIds(film.getGenres()));
+            if (previous != null) {
+                searchIndex.update(film.getId(), (String) previous.get("name"), (String) previous.get("description"),
+                        film.getName(), film.getDescription());
+            }
+            versions.filmChanged(film.getId());
             return film;
         }
         log.warn("Movie with id {} not found.", film.getId());
         throw new NotFoundException(String.format("Movie with id %d not found.", film.getId()));
     }
 
+    private Map<String, Object> getFilmTexts(long filmId) {
+        String getFilmTexts = "SELECT name, description FROM films WHERE film_id = ? FOR UPDATE";
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(getFilmTexts, filmId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void syncGenres(long filmId, List<Genre> genres) {
+        String getGenreIds = "SELECT genre_id FROM film_genre WHERE film_id = ?";
+        Set<Integer> stored = new HashSet<>(jdbcTemplate.queryForList(getGenreIds, Integer.class, filmId));
+        Set<Integer> requested = genreIds(genres);
+
+        List<Object[]> toDelete = stored.stream()
+                .filter(genreId -> !requested.contains(genreId))
+                .map(genreId -> new Object[]{filmId, genreId})
+                .collect(Collectors.toList());
+        List<Object[]> toInsert = requested.stream()
+                .filter(genreId -> !stored.contains(genreId))
+                .map(genreId -> new Object[]{filmId, genreId})
+                .collect(Collectors.toList());
+        if (!toDelete.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_genre WHERE film_id = ? AND genre_id = ?", toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genre(film_id, genre_id) VALUES (?, ?)", toInsert);
+        }
+        log.debug("Genres of movie {} updated: {} removed, {} added", filmId, toDelete.size(), toInsert.size());
+    }
+
+    private static Set<Integer> genreIds(List<Genre> genres) {
+        return genres.stream()
+                .map(Genre::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return getPopularFilms(count);
+        }
+        if (facets.isLoaded()) {
+            return getFilmsByIds(facets.top(count, genreId, year));
+        }
+        List<Object> params = new ArrayList<>();
+        if (genreId != null) {
+            params.add(genreId);
+        }
+        if (year != null) {
+            params.add(Date.valueOf(LocalDate.of(year, 1, 1)));
+            params.add(Date.valueOf(LocalDate.of(year + 1, 1, 1)));
+        }
+        params.add(count);
+        return jdbcTemplate.query(filteredPopularFilmsQuery(genreId != null, year != null), filmRowMapper,
+                params.toArray());
+    }
+
+    /**
+     * Cold-start ranking for {@link #getPopularFilms(int, Integer, Integer)}: the genre is looked up through
+     * {@code film_genre_genre_idx}, the year as a {@code release_date} range on {@code films_release_date_idx},
+     * and likes are counted per candidate film on the primary key of {@code likes}.
+     */
+    public static String filteredPopularFilmsQuery(boolean byGenre, boolean byYear) {
+        return "SELECT f.*, m.name AS mpa_name, " +
+                "(SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id) AS likes_qty " +
+                "FROM films AS f JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
+                (byGenre ? "JOIN film_genre AS g ON g.film_id = f.film_id AND g.genre_id = ? " : "") +
+                (byYear ? "WHERE f.release_date >= ? AND f.release_date < ? " : "") +
+                "ORDER BY likes_qty DESC, f.film_id LIMIT ?";
+    }
+
+    @Override
     public List<Film> getPopularFilms(int count) {
+        if (leaderboard.isLoaded()) {
+            return getFilmsByIds(leaderboard.top(count));
+        }
         String getPopularFilms = "SELECT f.*, m.name AS mpa_name FROM films AS f " +
                 "JOIN mpa AS m ON f.mpa_id = m.mpa_id " + "LEFT JOIN " +
-                "(SELECT film_id, COUNT(user_id) AS likes_qty FROM likes GROUP BY film_id " +
-                "ORDER BY likes_qty DESC limit ?) " + "AS top ON f.film_id = top.film_id " +
-                "ORDER BY top.likes_qty DESC " + "limit ?";
-        return jdbcTemplate.query(getPopularFilms, (rs, rowNum) -> mapRowToFilm(rs), count, count);
+                "(SELECT film_id, COUNT(user_id) AS likes_qty FROM likes GROUP BY film_id) " +
+                "AS top ON f.film_id = top.film_id " +
+                "ORDER BY COALESCE(top.likes_qty, 0) DESC, f.film_id " + "limit ?";
+        return jdbcTemplate.query(getPopularFilms, filmRowMapper, count);
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, Set<SearchField> fields, int limit) {
+        if (!searchIndex.isLoaded()) {
+            throw new OverloadedException("Film search index is not loaded yet, please retry later.");
+        }
+        long[] found = searchIndex.search(query, fields, limit);
+        return getFilmsByIds(Arrays.stream(found).boxed().collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            String getFilmsByIds = "SELECT f.*, m.name AS mpa_name FROM films AS f " +
+                    "JOIN mpa AS m ON f.mpa_id = m.mpa_id WHERE f.film_id IN " + inClause(chunk.size());
+            jdbcTemplate.query(getFilmsByIds, (RowCallbackHandler) rs -> {
+                Film film = filmRowMapper.mapRow(rs, 0);
+                filmsById.put(film.getId(), film);
+            }, chunk.toArray());
+        }
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     @Override
+    @Transactional
     public void addGenreToFilm(long filmId, int genreId) {
+        gate.join();
         String addGenreToFilm = "INSERT INTO film_genre(film_id, genre_id) " + "VALUES (?, ?)";
         jdbcTemplate.update(addGenreToFilm, filmId, genreId);
+        facets.addGenre(filmId, genreId);
+        versions.filmChanged(filmId);
     }
 
     @Override
+    @Transactional
     public void deleteGenreFromFilm(long filmId, int genreId) {
+        gate.join();
         String deleteGenreFromFilm = "DELETE FROM film_genre WHERE film_id = ? AND genre_id = ?";
         jdbcTemplate.update(deleteGenreFromFilm, filmId, genreId);
+        facets.removeGenre(filmId, genreId);
+        versions.filmChanged(filmId);
     }
 
     @Override
+    @Transactional
     public void clearGenresFromFilm(long filmId) {
+        gate.join();
         String clearGenresFromFilm = "DELETE FROM film_genre WHERE film_id = ?";
         jdbcTemplate.update(clearGenresFromFilm, filmId);
+        facets.clearGenres(filmId);
+        versions.filmChanged(filmId);
     }
 
     @Override
     public List<Long> getLikesByFilm(long filmId) {
-        String getLikesByFilm = "SELECT user_id FROM likes WHERE film_id = ?";
+        if (likeIndex.isLoaded()) {
+            return Arrays.stream(likeIndex.likers(filmId)).boxed().collect(Collectors.toList());
+        }
+        String getLikesByFilm = "SELECT user_id FROM likes WHERE film_id = ? ORDER BY user_id";
         return jdbcTemplate.queryForList(getLikesByFilm, Long.class, filmId);
     }
 
     @Override
+    public long[] getLikerIds(long filmId) {
+        if (likeIndex.isLoaded()) {
+            return likeIndex.likers(filmId);
+        }
+        String getLikerIds = "SELECT user_id FROM likes WHERE film_id = ? ORDER BY user_id";
+        return jdbcTemplate.queryForList(getLikerIds, Long.class, filmId).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @Override
+    public long[] getLikedFilmIds(long userId) {
+        if (likeIndex.isLoaded()) {
+            return likeIndex.likedFilms(userId);
+        }
+        String getLikedFilmIds = "SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id";
+        return jdbcTemplate.queryForList(getLikedFilmIds, Long.class, userId).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @Override
+    public boolean hasLike(long filmId, long userId) {
+        if (likeIndex.isLoaded()) {
+            return likeIndex.contains(filmId, userId);
+        }
+        String hasLike = "SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?";
+        Integer count = jdbcTemplate.queryForObject(hasLike, Integer.class, filmId, userId);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public int getLikesCount(long filmId) {
+        if (likeIndex.isLoaded()) {
+            return likeIndex.count(filmId);
+        }
+        String getLikesCount = "SELECT COUNT(*) FROM likes WHERE film_id = ?";
+        Integer count = jdbcTemplate.queryForObject(getLikesCount, Integer.class, filmId);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public List<Long> getCommonLikes(long filmId, long otherFilmId) {
+        if (likeIndex.isLoaded()) {
+            return Arrays.stream(likeIndex.commonLikers(filmId, otherFilmId)).boxed().collect(Collectors.toList());
+        }
+        String getCommonLikes = "SELECT l.user_id FROM likes AS l " +
+                "JOIN likes AS o ON o.user_id = l.user_id AND o.film_id = ? " +
+                "WHERE l.film_id = ? ORDER BY l.user_id";
+        return jdbcTemplate.queryForList(getCommonLikes, Long.class, otherFilmId, filmId);
+    }
+
+    @Override
+    @Transactional
     public void addLike(long filmId, long userId) {
+        gate.join();
         String addLike = "INSERT INTO likes(film_id, user_id) VALUES (?, ?)";
         jdbcTemplate.update(addLike, filmId, userId);
+        leaderboard.changeLikes(filmId, 1);
+        facets.changeLikes(filmId, 1);
+        likeIndex.add(filmId, userId);
+        versions.filmChanged(filmId);
     }
 
     @Override
+    @Transactional
     public void deleteLike(long filmId, long userId) {
+        gate.join();
         String deleteLike = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(deleteLike, filmId, userId);
-    }
-
-    private Film mapRowToFilm(ResultSet rs) throws SQLException {
-        long id = rs.getLong("film_id");
-        String name = rs.getString("name");
-        String description = rs.getString("description");
-        LocalDate releaseDate = rs.getDate("release_date").toLocalDate();
-        int duration = rs.getInt("duration");
-        int mpaId = rs.getInt("mpa_id");
-        String mpaName = rs.getString("mpa_name");
-
-        Mpa mpa = Mpa.builder()
-                .id(mpaId)
-                .name(mpaName)
-                .build();
-        return Film.builder()
-                .id(id)
-                .name(name)
-                .description(description)
-                .releaseDate(releaseDate)
-                .duration(duration)
-                .mpa(mpa)
-                .build();
+        if (jdbcTemplate.update(deleteLike, filmId, userId) > 0) {
+            leaderboard.changeLikes(filmId, -1);
+            facets.changeLikes(filmId, -1);
+            likeIndex.remove(filmId, userId);
+            versions.filmChanged(filmId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addLikes(Collection<Like> likes) {
+        gate.join();
+        String addLikeIfAbsent = "INSERT INTO likes(film_id, user_id) " +
+                "SELECT film_id, ? FROM films WHERE film_id = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+        List<Like> batch = new ArrayList<>(likes);
+        int[] inserted = jdbcTemplate.batchUpdate(addLikeIfAbsent, batch.stream()
+                .map(like -> new Object[]{like.getUserId(), like.getFilmId(), like.getFilmId(), like.getUserId()})
+                .collect(Collectors.toList()));
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                leaderboard.changeLikes(batch.get(i).getFilmId(), 1);
+                facets.changeLikes(batch.get(i).getFilmId(), 1);
+                likeIndex.add(batch.get(i).getFilmId(), batch.get(i).getUserId());
+                versions.filmChanged(batch.get(i).getFilmId());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteLikes(Collection<Like> likes) {
+        gate.join();
+        String deleteLike = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+        List<Like> batch = new ArrayList<>(likes);
+        int[] deleted = jdbcTemplate.batchUpdate(deleteLike, batch.stream()
+                .map(like -> new Object[]{like.getFilmId(), like.getUserId()})
+                .collect(Collectors.toList()));
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                leaderboard.changeLikes(batch.get(i).getFilmId(), -1);
+                facets.changeLikes(batch.get(i).getFilmId(), -1);
+                likeIndex.remove(batch.get(i).getFilmId(), batch.get(i).getUserId());
+                versions.filmChanged(batch.get(i).getFilmId());
+            }
+        }
     }
 }
\ No newline at end of file
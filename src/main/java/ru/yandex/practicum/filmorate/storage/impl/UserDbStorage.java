@@ -5,39 +5,82 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
 import ru.yandex.practicum.filmorate.dao.AbstractDao;
+import ru.yandex.practicum.filmorate.dao.mapper.UserRowMapper;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.DenseIdSet;
+import ru.yandex.practicum.filmorate.index.IndexWriteGate;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.time.LocalDate;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository("UserDbStorage")
 @Slf4j
-public class UserDbStorage extends AbstractDao implements UserStorage {
+public class UserDbStorage extends AbstractDao implements UserStorage, RebuildableIndex {
+
+    private static final int STREAM_FETCH_SIZE = 500;
 
     private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final DenseIdSet userIds = new DenseIdSet();
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private final EntityVersions versions;
+    private final IndexWriteGate gate;
 
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate, EntityVersions versions, IndexWriteGate gate) {
         super(jdbcTemplate);
+        this.versions = versions;
+        this.gate = gate;
+    }
+
+    @Override
+    public void rebuild() {
+        String getUserIds = "SELECT user_id FROM users";
+        gate.rebuild(() -> userIds.load(jdbcTemplate.queryForList(getUserIds, Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray()));
     }
 
     @Override
     public List<User> getAllUsers() {
         String getAllUsers = "SELECT * FROM users";
-        return jdbcTemplate.query(getAllUsers, (rs, rowNum) -> mapRowToUser(rs));
+        return jdbcTemplate.query(getAllUsers, userRowMapper);
+    }
+
+    @Override
+    public List<User> getUsersAfter(long afterId, int limit) {
+        String getUsersAfter = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.query(getUsersAfter, userRowMapper, afterId, limit);
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        String getAllUsers = "SELECT * FROM users ORDER BY user_id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(getAllUsers);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(userRowMapper.mapRow(rs, rs.getRow())));
     }
 
     @Override
     public User findUserById(long id) {
         String findUserById = "SELECT * FROM users WHERE user_id = ?";
         try {
-            return jdbcTemplate.queryForObject(findUserById, (rs, rowNum) -> mapRowToUser(rs), id);
+            return jdbcTemplate.queryForObject(findUserById, userRowMapper, id);
         } catch (DataRetrievalFailureException e) {
             log.warn("User with id {} not found", id);
             throw new NotFoundException(String.format("User with id %d not found", id));
@@ -45,8 +88,41 @@ public class UserDbStorage extends AbstractDao implements UserStorage {
     }
 
     @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        Map<Long, User> usersById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            String getUsersByIds = "SELECT * FROM users WHERE user_id IN " + inClause(chunk.size());
+            jdbcTemplate.query(getUsersByIds, (RowCallbackHandler) rs -> {
+                User user = userRowMapper.mapRow(rs, rs.getRow());
+                usersById.put(user.getId(), user);
+            }, chunk.toArray());
+        }
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        if (userIds.covers(id)) {
+            return userIds.contains(id);
+        }
+        String existsById = "SELECT COUNT(*) FROM users WHERE user_id = ?";
+        Integer count = jdbcTemplate.queryForObject(existsById, Integer.class, id);
+        if (count != null && count > 0) {
+            userIds.addProbed(id);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    @Transactional
     @SneakyThrows
     public User addUser(User user) {
+        gate.join();
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
             log.info("Name not specified. Login will be used instead.");
@@ -56,6 +132,8 @@ public class UserDbStorage extends AbstractDao implements UserStorage {
                 .usingGeneratedKeyColumns("user_id");
         long id = simpleJdbcInsert.executeAndReturnKey(user.toMap()).longValue();
         user.setId(id);
+        userIds.add(id);
+        versions.userChanged(id);
         log.debug("User {} saved", objectMapper.writeValueAsString(user));
         return user;
     }
@@ -64,24 +142,10 @@ public class UserDbStorage extends AbstractDao implements UserStorage {
     public User updateUser(User user) {
         String updateUser = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?";
         if (jdbcTemplate.update(updateUser, user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId()) > 0) {
+            versions.userChanged(user.getId());
             return user;
         }
         log.warn("User with id {} not found", user.getId());
         throw new NotFoundException(String.format("User with id %d not found", user.getId()));
     }
-
-    private User mapRowToUser(ResultSet rs) throws SQLException {
-        long id = rs.getLong("user_id");
-        String email = rs.getString("email");
-        String login = rs.getString("login");
-        String name = rs.getString("name");
-        LocalDate birthday = rs.getDate("birthday").toLocalDate();
-        return User.builder()
-                .id(id)
-                .email(email)
-                .login(login)
-                .name(name)
-                .birthday(birthday)
-                .build();
-    }
-}
\ No newline at end of file
+}
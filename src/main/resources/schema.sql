@@ -165,4 +165,8 @@ create table IF NOT EXISTS LIKES
     FILM_ID,
     USER_ID
 )
-    );
\ No newline at end of file
+    );
+
+CREATE INDEX IF NOT EXISTS FILM_GENRE_GENRE_IDX ON FILM_GENRE (GENRE_ID, FILM_ID);
+
+CREATE INDEX IF NOT EXISTS FILMS_RELEASE_DATE_IDX ON FILMS (RELEASE_DATE);
@@ -1,32 +1,67 @@
 package ru.yandex.practicum.filmorate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.cache.EntityVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCaches;
+import ru.yandex.practicum.filmorate.controller.AdminController;
 import ru.yandex.practicum.filmorate.dao.FriendshipDao;
 import ru.yandex.practicum.filmorate.dao.GenreDao;
 import ru.yandex.practicum.filmorate.dao.MpaDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
+import ru.yandex.practicum.filmorate.jfr.FlightRecordings;
+import ru.yandex.practicum.filmorate.metrics.OperationMetricsAspect;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.SearchField;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.jdbc.QueryCountAssertions.assertMaxQueries;
+import static ru.yandex.practicum.filmorate.jdbc.QueryCountAssertions.assertNoRepeatedQueries;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
@@ -34,11 +69,23 @@ import static org.junit.jupiter.api.Assertions.*;
 @Slf4j
 class FilmorateApplicationTests {
 
+    @TempDir
+    static Path recordingsDirectory;
+
     private final UserDbStorage userStorage;
     private final FilmDbStorage filmStorage;
     private final FriendshipDao friendshipDao;
     private final GenreDao genreDao;
     private final MpaDao mpaDao;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ResponseCaches responseCaches;
+    private final List<RebuildableIndex> indexes;
+    private final EntityVersions versions;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final FlightRecordings flightRecordings;
+    private final ApplicationContext applicationContext;
 
     User.UserBuilder userBuilder;
     Film.FilmBuilder filmBuilder;
@@ -49,6 +96,12 @@ class FilmorateApplicationTests {
 
     private final JdbcTemplate jdbcTemplate;
 
+    @DynamicPropertySource
+    static void flightRecordingProperties(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.jfr.dump-directory", recordingsDirectory::toString);
+        registry.add("filmorate.jfr.max-dumps", () -> 2);
+    }
+
     @BeforeEach
     public void setup() {
         userBuilder = User.builder()
@@ -78,6 +131,7 @@ class FilmorateApplicationTests {
         );
         jdbcTemplate.update("ALTER TABLE USERS ALTER COLUMN user_id RESTART WITH 1");
         jdbcTemplate.update("ALTER TABLE FILMS ALTER COLUMN film_id RESTART WITH 1");
+        indexes.forEach(RebuildableIndex::rebuild);
     }
 
     @Test
@@ -210,6 +264,26 @@ class FilmorateApplicationTests {
         assertEquals("Movie with id 999 not found.", ex.getMessage());
     }
 
+    @Test
+    public void shouldApplyOnlyGenreDeltaOnUpdate() {
+        Film film = filmBuilder.build();
+        film.addGenre(genreBuilder.id(1).build());
+        film.addGenre(genreBuilder.id(2).build());
+        filmStorage.addFilm(film);
+
+        Film updatedFilm = filmBuilder.id(1L).build();
+        updatedFilm.addGenre(genreBuilder.id(2).build());
+        updatedFilm.addGenre(genreBuilder.id(3).build());
+        filmStorage.updateFilm(updatedFilm);
+        assertThat(genreDao.getGenresByFilm(1)).extracting(Genre::getId).containsExactly(2, 3);
+
+        filmStorage.updateFilm(updatedFilm);
+        assertThat(genreDao.getGenresByFilm(1)).extracting(Genre::getId).containsExactly(2, 3);
+
+        filmStorage.updateFilm(filmBuilder.id(1L).build());
+        assertThat(genreDao.getGenresByFilm(1)).isEmpty();
+    }
+
     @Test
     public void shouldListTopFilms() {
         List<Film> topFilms = filmStorage.getPopularFilms(10);
@@ -232,6 +306,90 @@ class FilmorateApplicationTests {
                 .containsExactly(film2, film1);
     }
 
+    @Test
+    public void shouldKeepTopFilmsInSyncWithLikes() {
+        for (int i = 0; i < 3; i++) {
+            filmStorage.addFilm(filmBuilder.build());
+            userStorage.addUser(userBuilder.build());
+        }
+        filmStorage.addLike(3, 1);
+        filmStorage.addLike(3, 2);
+        filmStorage.addLike(2, 1);
+
+        assertThat(filmStorage.getPopularFilms(3))
+                .extracting(Film::getId)
+                .containsExactly(3L, 2L, 1L);
+
+        filmStorage.deleteLike(3, 1);
+        filmStorage.deleteLike(3, 2);
+        filmStorage.deleteLike(3, 3);
+        assertThat(filmStorage.getPopularFilms(2))
+                .extracting(Film::getId)
+                .containsExactly(2L, 1L);
+
+        indexes.forEach(RebuildableIndex::rebuild);
+        assertThat(filmStorage.getPopularFilms(10))
+                .extracting(Film::getId)
+                .containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    public void shouldFilterTopFilmsByGenreAndYear() {
+        Film first = filmBuilder.releaseDate(LocalDate.of(2000, 5, 1)).build();
+        first.addGenre(genreBuilder.id(1).build());
+        Film second = filmBuilder.releaseDate(LocalDate.of(2000, 12, 31)).build();
+        second.addGenre(genreBuilder.id(1).build());
+        second.addGenre(genreBuilder.id(2).build());
+        Film third = filmBuilder.releaseDate(LocalDate.of(1999, 1, 1)).build();
+        third.addGenre(genreBuilder.id(2).build());
+        filmStorage.addFilm(first);
+        filmStorage.addFilm(second);
+        filmStorage.addFilm(third);
+        userStorage.addUser(userBuilder.build());
+        userStorage.addUser(userBuilder.build());
+        filmStorage.addLike(3, 1);
+        filmStorage.addLike(3, 2);
+        filmStorage.addLike(2, 1);
+
+        assertThat(filmStorage.getPopularFilms(10, 1, null)).extracting(Film::getId).containsExactly(2L, 1L);
+        assertThat(filmStorage.getPopularFilms(10, 2, null)).extracting(Film::getId).containsExactly(3L, 2L);
+        assertThat(filmStorage.getPopularFilms(10, null, 2000)).extracting(Film::getId).containsExactly(2L, 1L);
+        assertThat(filmStorage.getPopularFilms(10, 2, 2000)).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmStorage.getPopularFilms(10, 3, null)).isEmpty();
+
+        Film moved = filmBuilder.id(1).releaseDate(LocalDate.of(1999, 6, 1)).build();
+        moved.addGenre(genreBuilder.id(2).build());
+        filmStorage.updateFilm(moved);
+        filmStorage.addLike(1, 1);
+        filmStorage.addLike(1, 2);
+        filmStorage.deleteGenreFromFilm(2, 2);
+
+        assertThat(filmStorage.getPopularFilms(10, null, 1999)).extracting(Film::getId).containsExactly(1L, 3L);
+        assertThat(filmStorage.getPopularFilms(10, 1, null)).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmStorage.getPopularFilms(1, 2, null)).extracting(Film::getId).containsExactly(1L);
+
+        indexes.forEach(RebuildableIndex::rebuild);
+        assertThat(filmStorage.getPopularFilms(10, 2, null)).extracting(Film::getId).containsExactly(1L, 3L);
+        assertThat(filmStorage.getPopularFilms(10, 2, 1999)).extracting(Film::getId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void shouldUseIndexesForFilteredTopFilmsQuery() {
+        String byGenre = explain(FilmDbStorage.filteredPopularFilmsQuery(true, false), 1, 10);
+        assertThat(byGenre).contains("FILM_GENRE_GENRE_IDX").doesNotContain("LIKES.tableScan");
+
+        String byYear = explain(FilmDbStorage.filteredPopularFilmsQuery(false, true),
+                Date.valueOf("2000-01-01"), Date.valueOf("2001-01-01"), 10);
+        assertThat(byYear).contains("FILMS_RELEASE_DATE_IDX").doesNotContain("FILMS.tableScan")
+                .doesNotContain("LIKES.tableScan");
+    }
+
+    private String explain(String query, Object... params) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class, params));
+        log.info("Query plan: {}", plan);
+        return plan;
+    }
+
     @Test
     public void shouldAddGenreToFilm() {
         Film film = filmBuilder.build();
@@ -327,6 +485,85 @@ class FilmorateApplicationTests {
         assertEquals(friends.get(0), 1);
     }
 
+    @Test
+    public void shouldReturnFriendUsersInOneQuery() {
+        userStorage.addUser(userBuilder.build());
+        userStorage.addUser(userBuilder.name("second").build());
+        userStorage.addUser(userBuilder.name("third").build());
+        userStorage.addUser(userBuilder.name("fourth").build());
+        friendshipDao.addFriend(1, 2);
+        friendshipDao.addFriend(4, 1);
+        friendshipDao.updateFriend(1, 4, true);
+        friendshipDao.addFriend(3, 1);
+
+        assertThat(friendshipDao.getFriendUsersByUser(1))
+                .extracting(User::getId, User::getName)
+                .containsExactly(tuple(2L, "second"), tuple(4L, "fourth"));
+        assertThat(friendshipDao.getFriendUsersAfter(1, 0, 1)).extracting(User::getId).containsExactly(2L);
+        assertThat(friendshipDao.getFriendUsersAfter(1, 2, 10)).extracting(User::getId).containsExactly(4L);
+        assertThat(friendshipDao.getFriendUsersByUser(2)).isEmpty();
+    }
+
+    @Test
+    public void shouldIntersectFriendsInQuery() {
+        for (int i = 1; i <= 5; i++) {
+            userStorage.addUser(userBuilder.name("user" + i).build());
+        }
+        friendshipDao.addFriend(1, 3);
+        friendshipDao.addFriend(1, 4);
+        friendshipDao.addFriend(2, 4);
+        friendshipDao.addFriend(2, 5);
+        friendshipDao.addFriend(5, 1);
+        friendshipDao.updateFriend(1, 5, true);
+
+        assertMaxQueries(1, () -> assertThat(friendshipDao.getCommonFriendUsers(1, 2))
+                .extracting(User::getId).containsExactly(4L, 5L));
+        assertEquals(2, friendshipDao.getCommonFriendsCount(1, 2));
+        assertMaxQueries(0, () -> assertThat(friendshipDao.getCommonFriendUsers(1, 3)).isEmpty());
+        assertEquals(0, friendshipDao.getCommonFriendsCount(1, 3));
+    }
+
+    @Test
+    public void shouldRankFriendRecommendationsInQuery() {
+        for (int i = 1; i <= 5; i++) {
+            userStorage.addUser(userBuilder.name("user" + i).build());
+        }
+        friendshipDao.addFriend(1, 2);
+        friendshipDao.addFriend(1, 3);
+        friendshipDao.addFriend(2, 4);
+        friendshipDao.addFriend(3, 4);
+        friendshipDao.addFriend(3, 5);
+
+        assertThat(friendshipDao.getFriendRecommendationIds(1, 10)).containsExactly(4L, 5L);
+        assertThat(friendshipDao.getFriendRecommendationIds(1, 1)).containsExactly(4L);
+        assertThat(friendshipDao.getFriendRecommendationIds(4, 10)).isEmpty();
+        assertThat(userService.getFriendRecommendations(1, 10)).extracting(User::getId).containsExactly(4L, 5L);
+    }
+
+    @Test
+    public void shouldKeepFriendGraphInSyncWithFriendshipTable() {
+        for (int i = 1; i <= 4; i++) {
+            userStorage.addUser(userBuilder.name("user" + i).build());
+        }
+        friendshipDao.addFriend(1, 2);
+        friendshipDao.addFriend(1, 3);
+        friendshipDao.updateFriend(2, 1, true);
+        friendshipDao.addFriend(4, 1);
+        friendshipDao.deleteFriend(3, 1);
+
+        assertThat(friendshipDao.getFriendsByUser(1)).containsExactly(2L);
+        assertThat(friendshipDao.getFriendsByUser(2)).containsExactly(1L);
+        assertThat(friendshipDao.getFriendsByUser(4)).containsExactly(1L);
+        assertTrue(friendshipDao.isFriend(2, 1));
+        assertFalse(friendshipDao.isFriend(1, 4));
+
+        indexes.forEach(RebuildableIndex::rebuild);
+        assertThat(friendshipDao.getFriendsByUser(1)).containsExactly(2L);
+        assertThat(friendshipDao.getFriendsByUser(2)).containsExactly(1L);
+        assertThat(friendshipDao.getFriendsByUser(4)).containsExactly(1L);
+        assertEquals(1, friendshipDao.getCommonFriendsCount(2, 4));
+    }
+
     @Test
     public void testDeletingFriendship() {
         User user = userBuilder.build();
@@ -467,4 +704,418 @@ class FilmorateApplicationTests {
         List<Genre> genres = genreDao.getGenresByFilm(film.getId());
         assertThat(genres).isNotNull().isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReturnGenresForSeveralFilmsAtOnce() {
+        filmStorage.addFilm(filmBuilder.build());
+        filmStorage.addFilm(filmBuilder.build());
+        filmStorage.addFilm(filmBuilder.build());
+        filmStorage.addGenreToFilm(1, 2);
+        filmStorage.addGenreToFilm(1, 1);
+        filmStorage.addGenreToFilm(3, 6);
+
+        Map<Long, List<Genre>> genres = genreDao.getGenresByFilms(List.of(1L, 2L, 3L));
+        assertThat(genres)
+                .hasSize(2)
+                .doesNotContainKey(2L);
+        assertThat(genres.get(1L))
+                .extracting(Genre::getId)
+                .containsExactly(1, 2);
+        assertThat(genres.get(3L))
+                .extracting(Genre::getId)
+                .containsExactly(6);
+        assertThat(genreDao.getGenresByFilms(Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    public void shouldPageFilmsByKeyset() {
+        for (int i = 0; i < 5; i++) {
+            filmStorage.addFilm(filmBuilder.build());
+        }
+        List<Film> firstPage = filmStorage.getFilmsAfter(0, 2);
+        assertThat(firstPage)
+                .extracting(Film::getId)
+                .containsExactly(1L, 2L);
+        List<Film> lastPage = filmStorage.getFilmsAfter(4, 2);
+        assertThat(lastPage)
+                .extracting(Film::getId)
+                .containsExactly(5L);
+        assertThat(filmStorage.getFilmsAfter(5, 2)).isEmpty();
+    }
+
+    @Test
+    public void shouldPageUsersByKeyset() {
+        for (int i = 0; i < 3; i++) {
+            userStorage.addUser(userBuilder.build());
+        }
+        assertThat(userStorage.getUsersAfter(1, 10))
+                .extracting(User::getId)
+                .containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void shouldAnswerLikeQueriesFromIndex() {
+        filmStorage.addFilm(filmBuilder.build());
+        filmStorage.addFilm(filmBuilder.build());
+        for (int i = 0; i < 3; i++) {
+            userStorage.addUser(userBuilder.build());
+        }
+        filmStorage.addLike(1, 1);
+        filmStorage.addLike(1, 2);
+        filmStorage.addLike(2, 2);
+        filmStorage.addLike(2, 3);
+
+        assertTrue(filmStorage.hasLike(1, 2));
+        assertFalse(filmStorage.hasLike(1, 3));
+        assertEquals(2, filmStorage.getLikesCount(1));
+        assertThat(filmStorage.getCommonLikes(1, 2)).containsExactly(2L);
+
+        assertThat(filmStorage.getLikedFilmIds(2)).containsExactly(1L, 2L);
+
+        filmStorage.deleteLike(2, 2);
+        assertThat(filmStorage.getCommonLikes(1, 2)).isEmpty();
+        assertThat(filmStorage.getLikedFilmIds(2)).containsExactly(1L);
+
+        indexes.forEach(RebuildableIndex::rebuild);
+        assertThat(filmStorage.getLikesByFilm(1)).containsExactly(1L, 2L);
+        assertThat(filmStorage.getLikesByFilm(2)).containsExactly(3L);
+        assertThat(filmStorage.getLikedFilmIds(3)).containsExactly(2L);
+        assertThat(filmStorage.getLikerIds(1)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void shouldProbeExistenceOfFilmsAndUsers() {
+        assertFalse(filmStorage.existsById(1));
+        assertFalse(userStorage.existsById(1));
+
+        filmStorage.addFilm(filmBuilder.build());
+        userStorage.addUser(userBuilder.build());
+        assertTrue(filmStorage.existsById(1));
+        assertTrue(userStorage.existsById(1));
+        assertFalse(filmStorage.existsById(2));
+        assertFalse(userStorage.existsById(-1));
+
+        jdbcTemplate.update("INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "other@google.com", "Other", "Other", LocalDate.of(1990, 1, 1));
+        assertTrue(userStorage.existsById(2));
+    }
+
+    @Test
+    public void shouldKeepIdsInsertedDuringRebuild() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Long> userIds = Collections.synchronizedList(new ArrayList<>());
+        List<Long> filmIds = Collections.synchronizedList(new ArrayList<>());
+        Future<?> inserts = executor.submit(() -> {
+            for (int i = 0; i < 100; i++) {
+                userIds.add(userStorage.addUser(userBuilder.login("Login" + i).build()).getId());
+                filmIds.add(filmStorage.addFilm(filmBuilder.name("Film " + i).build()).getId());
+            }
+        });
+        while (!inserts.isDone()) {
+            indexes.forEach(RebuildableIndex::rebuild);
+        }
+        inserts.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(userIds).hasSize(100).allMatch(userStorage::existsById);
+        assertThat(filmIds).hasSize(100).allMatch(filmStorage::existsById);
+    }
+
+    @Test
+    public void shouldKeepLikesAndFriendsWrittenDuringRebuild() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            userStorage.addUser(userBuilder.login("Login" + i).build());
+            filmStorage.addFilm(filmBuilder.name("Film " + i).build());
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writes = executor.submit(() -> {
+            for (long userId = 1; userId <= 20; userId++) {
+                for (long filmId = 1; filmId <= userId; filmId++) {
+                    filmStorage.addLike(filmId, userId);
+                }
+                if (userId % 3 == 0) {
+                    filmStorage.deleteLike(1, userId);
+                }
+                friendshipDao.addFriend(userId, userId % 20 + 1);
+            }
+        });
+        while (!writes.isDone()) {
+            indexes.forEach(RebuildableIndex::rebuild);
+        }
+        writes.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (long filmId = 1; filmId <= 20; filmId++) {
+            assertEquals(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "likes", "film_id = " + filmId),
+                    filmStorage.getLikesCount(filmId));
+        }
+        assertThat(filmStorage.getPopularFilms(3)).extracting(Film::getId).containsExactly(2L, 3L, 4L);
+        for (long userId = 1; userId <= 20; userId++) {
+            assertThat(friendshipDao.getFriendsByUser(userId)).containsExactly(userId % 20 + 1);
+        }
+    }
+
+    @Test
+    public void shouldInsertFilmsInOneBatch() {
+        Film first = filmBuilder.name("First").build();
+        first.addGenre(genreBuilder.id(1).build());
+        first.addGenre(genreBuilder.id(2).build());
+        Film second = filmBuilder.name("Second").build();
+
+        filmStorage.addFilms(List.of(first, second));
+
+        assertEquals(1, first.getId());
+        assertEquals(2, second.getId());
+        assertTrue(filmStorage.existsById(2));
+        assertThat(genreDao.getGenresByFilm(1)).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(filmStorage.getPopularFilms(10)).extracting(Film::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void shouldImportValidRecordsAndRejectInvalidOnes() {
+        Film valid = filmBuilder.name("Valid").build();
+        Film unnamed = filmBuilder.name("").build();
+        Film unknownMpa = filmBuilder.name("Unknown MPA").mpa(mpaBuilder.id(99).build()).build();
+        Film unknownGenre = filmBuilder.name("Unknown genre").mpa(mpaBuilder.id(1).build()).build();
+        unknownGenre.addGenre(genreBuilder.id(99).build());
+
+        List<ImportResult> results = filmService.importFilms(
+                List.of(valid, unnamed, unknownMpa, unknownGenre, filmBuilder.name("Also valid").build()).iterator());
+
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportResult.Status.CREATED,
+                ImportResult.Status.REJECTED,
+                ImportResult.Status.REJECTED,
+                ImportResult.Status.REJECTED,
+                ImportResult.Status.CREATED);
+        assertThat(results.get(1).getErrors()).containsExactly("Title missing.");
+        assertThat(results.get(2).getErrors()).containsExactly("MPA rating with id 99 not found");
+        assertThat(results.get(3).getErrors()).containsExactly("Genre with id 99 not found.");
+        assertEquals(2L, results.get(4).getId());
+        assertThat(filmStorage.getAllFilms()).extracting(Film::getName).containsExactlyInAnyOrder("Valid", "Also valid");
+    }
+
+    @Test
+    public void shouldSearchFilmsFromIndexAndFollowUpdates() {
+        filmStorage.addFilm(filmBuilder.name("The Matrix").description("A hacker discovers reality").build());
+        Film sequel = filmStorage.addFilm(filmBuilder.name("Matrix reloaded").description("Sequel").build());
+        filmStorage.addFilm(filmBuilder.name("Reality bites").description("Comedy").build());
+
+        assertThat(filmStorage.searchFilms("matrix", EnumSet.allOf(SearchField.class), 10))
+                .extracting(Film::getId).containsExactly(1L, 2L);
+        assertThat(filmStorage.searchFilms("real", EnumSet.allOf(SearchField.class), 10))
+                .extracting(Film::getId).containsExactly(3L, 1L);
+        assertThat(filmStorage.searchFilms("real", EnumSet.of(SearchField.DESCRIPTION), 10))
+                .extracting(Film::getId).containsExactly(1L);
+
+        sequel.setName("Neo returns");
+        filmStorage.updateFilm(sequel);
+        assertThat(filmStorage.searchFilms("matrix", EnumSet.allOf(SearchField.class), 10))
+                .extracting(Film::getId).containsExactly(1L);
+
+        indexes.forEach(RebuildableIndex::rebuild);
+        assertThat(filmStorage.searchFilms("neo", EnumSet.allOf(SearchField.class), 10))
+                .extracting(Film::getName).containsExactly("Neo returns");
+    }
+
+    @Test
+    public void shouldKeepSearchIndexInSyncWithConcurrentUpdates() throws Exception {
+        long id = filmStorage.addFilm(filmBuilder.name("Initial").description("Text").build()).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> updates = new ArrayList<>();
+        for (String word : List.of("red", "blue")) {
+            Film film = filmBuilder.id(id).name(word).description(word + " description").build();
+            updates.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    filmStorage.updateFilm(film);
+                }
+            }));
+        }
+        for (Future<?> update : updates) {
+            update.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        String name = filmStorage.getFilmById(id).getName();
+        String other = name.equals("red") ? "blue" : "red";
+        assertThat(filmStorage.searchFilms(name, EnumSet.allOf(SearchField.class), 10))
+                .extracting(Film::getId).containsExactly(id);
+        assertThat(filmStorage.searchFilms(other, EnumSet.allOf(SearchField.class), 10)).isEmpty();
+    }
+
+    @Test
+    public void shouldBumpVersionsOnWrites() {
+        Film film = filmStorage.addFilm(filmBuilder.build());
+        filmStorage.addFilm(filmBuilder.build());
+        userStorage.addUser(userBuilder.build());
+        userStorage.addUser(userBuilder.build());
+
+        String filmTag = versions.filmTag(1);
+        String otherFilmTag = versions.filmTag(2);
+        String filmsTag = versions.filmsTag();
+        filmStorage.addLike(1, 1);
+        assertNotEquals(filmTag, versions.filmTag(1));
+        assertNotEquals(filmsTag, versions.filmsTag());
+        assertEquals(otherFilmTag, versions.filmTag(2));
+
+        filmTag = versions.filmTag(1);
+        String tagInTransaction = transactionTemplate.execute(status -> {
+            film.setName("Renamed");
+            filmStorage.updateFilm(film);
+            return versions.filmTag(1);
+        });
+        assertEquals(filmTag, tagInTransaction);
+        assertNotEquals(filmTag, versions.filmTag(1));
+
+        String userTag = versions.userTag(1);
+        String friendTag = versions.userTag(2);
+        String usersTag = versions.usersTag();
+        friendshipDao.addFriend(1, 2);
+        assertNotEquals(userTag, versions.userTag(1));
+        assertNotEquals(friendTag, versions.userTag(2));
+        assertNotEquals(usersTag, versions.usersTag());
+
+        userTag = versions.userTag(1);
+        userStorage.updateUser(userBuilder.id(1).name("Renamed").build());
+        assertNotEquals(userTag, versions.userTag(1));
+    }
+
+    @Test
+    public void shouldServeCachedReadsWithoutStaleDataAfterWrites() {
+        filmStorage.addFilm(filmBuilder.name("First").build());
+        filmStorage.addFilm(filmBuilder.name("Second").build());
+        userStorage.addUser(userBuilder.build());
+        responseCaches.clear();
+        ResponseCaches.Stats before = filmCacheStats();
+
+        Film cached = filmService.getFilmById(1);
+        assertSame(cached, filmService.getFilmById(1));
+        User cachedUser = userService.findUserById(1);
+        assertSame(cachedUser, userService.findUserById(1));
+        assertThat(filmService.getPopularFilms(10, null, null)).extracting(Film::getId).containsExactly(1L, 2L);
+
+        filmService.updateFilm(filmBuilder.id(1).name("Renamed").build());
+        assertEquals("Renamed", filmService.getFilmById(1).getName());
+
+        filmStorage.addLike(2, 1);
+        assertThat(filmService.getPopularFilms(10, null, null)).extracting(Film::getId).containsExactly(2L, 1L);
+
+        userStorage.updateUser(userBuilder.id(1).name("Renamed").build());
+        assertEquals("Renamed", userService.findUserById(1).getName());
+
+        ResponseCaches.Stats after = filmCacheStats();
+        assertEquals(1, after.getHits() - before.getHits());
+        assertEquals(2, after.getLoads() - before.getLoads());
+        assertThat(after.getHitRatio()).isGreaterThan(0);
+    }
+
+    @Test
+    public void shouldTimeDataAccessAndServiceCalls() {
+        filmStorage.addFilm(filmBuilder.build());
+        filmService.getFilmById(1);
+        assertThrows(NotFoundException.class, () -> filmService.getFilmById(999));
+        genreDao.getGenres();
+
+        assertThat(meterRegistry.get(OperationMetricsAspect.DAO_TIMER)
+                .tags("class", "FilmDbStorage", "method", "addFilm", "exception", "none")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get(OperationMetricsAspect.SERVICE_TIMER)
+                .tags("class", "DbFilmService", "method", "getFilmById", "exception", "none")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get(OperationMetricsAspect.SERVICE_TIMER)
+                .tags("class", "DbFilmService", "method", "getFilmById", "exception", "NotFoundException")
+                .timer().count()).isPositive();
+        assertEquals(6.0, meterRegistry.get("filmorate.reference.cache.size").tag("cache", "genre").gauge().value());
+        assertThat(meterRegistry.get("filmorate.reference.cache.requests").tags("cache", "genre", "result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @Test
+    public void shouldReadListsWithConstantQueryCount() {
+        for (int i = 1; i <= 20; i++) {
+            Film film = filmBuilder.name("Film " + i).build();
+            film.addGenre(genreBuilder.id(1 + i % 6).build());
+            filmStorage.addFilm(film);
+            userStorage.addUser(userBuilder.email("user" + i + "@google.com").login("Login" + i).build());
+        }
+        for (long friendId = 2; friendId <= 20; friendId++) {
+            friendshipDao.addFriend(1, friendId);
+        }
+        responseCaches.clear();
+
+        assertMaxQueries(2, () -> assertEquals(20, filmService.getAllFilms().size()));
+        assertMaxQueries(1, () -> assertEquals(19, userService.getFriends(1).size()));
+        assertNoRepeatedQueries(2, () -> filmService.getPopularFilms(10, null, null));
+    }
+
+    @Test
+    public void shouldRecordFlightEventsForDataAccessServiceAndCacheCalls() throws IOException {
+        FlightRecordings.Info recording = flightRecordings.start("default");
+        filmStorage.addFilm(filmBuilder.build());
+        filmService.getFilmById(1);
+        genreDao.getGenres();
+
+        Path file = Paths.get(flightRecordings.dump(recording.getId()).getDumpedTo());
+        flightRecordings.stop(recording.getId());
+        assertEquals(recordingsDirectory.toAbsolutePath(), file.getParent());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("filmorate.DaoCall"))
+                .filteredOn(event -> event.getString("operation").equals("FilmDbStorage.addFilm"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getInt("statements")).isPositive());
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("filmorate.ServiceCall"))
+                .extracting(event -> event.getString("operation"))
+                .contains("DbFilmService.getFilmById");
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("filmorate.CacheAccess"))
+                .extracting(event -> event.getString("cache"))
+                .contains("genre");
+        assertThrows(NotFoundException.class, () -> flightRecordings.dump(recording.getId()));
+    }
+
+    @Test
+    public void shouldRejectFlightRecordingsAboveLimit() {
+        List<FlightRecordings.Info> started = List.of(flightRecordings.start("default"),
+                flightRecordings.start("default"));
+        try {
+            assertThrows(OverloadedException.class, () -> flightRecordings.start("profile"));
+            assertThat(flightRecordings.getRecordings()).hasSize(2);
+        } finally {
+            started.forEach(recording -> flightRecordings.stop(recording.getId()));
+        }
+        flightRecordings.stop(flightRecordings.start("profile").getId());
+    }
+
+    @Test
+    public void shouldKeepOnlyNewestFlightRecordingDumps() throws Exception {
+        FlightRecordings.Info recording = flightRecordings.start("default");
+        List<Path> dumps = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                dumps.add(Paths.get(flightRecordings.dump(recording.getId()).getDumpedTo()));
+                Thread.sleep(5);
+            }
+        } finally {
+            flightRecordings.stop(recording.getId());
+        }
+
+        try (Stream<Path> files = Files.list(recordingsDirectory)) {
+            assertThat(files.map(Path::toAbsolutePath)).containsExactlyInAnyOrder(dumps.get(1), dumps.get(2));
+        }
+    }
+
+    @Test
+    public void shouldNotExposeAdminEndpointsByDefault() {
+        assertThat(applicationContext.getBeansOfType(AdminController.class)).isEmpty();
+    }
+
+    private ResponseCaches.Stats filmCacheStats() {
+        return responseCaches.getStats().stream()
+                .filter(stats -> stats.getName().equals(ResponseCaches.FILMS))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceDataCacheTest {
+
+    private final List<Genre> table = new ArrayList<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private ReferenceDataCache<Genre> cache;
+
+    @BeforeEach
+    void setup() {
+        table.add(Genre.builder().id(1).name("Комедия").build());
+        table.add(Genre.builder().id(2).name("Драма").build());
+        cache = new ReferenceDataCache<>("genre", () -> {
+            queries.incrementAndGet();
+            return table;
+        }, Genre::getId);
+    }
+
+    @Test
+    void shouldLoadOnceAndServeReadsFromMemory() {
+        assertThat(cache.getAll()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(cache.get(2)).hasValueSatisfying(genre -> assertThat(genre.getName()).isEqualTo("Драма"));
+        assertThat(cache.get(3)).isEmpty();
+        assertThat(queries).hasValue(1);
+
+        ReferenceDataCache.Stats stats = cache.getStats();
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getLoads()).isEqualTo(1);
+        assertThat(stats.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPickUpNewRowsOnlyAfterReloadOrInvalidation() {
+        cache.getAll();
+        table.add(Genre.builder().id(3).name("Мультфильм").build());
+        assertThat(cache.get(3)).isEmpty();
+
+        cache.invalidate();
+        assertThat(cache.get(3)).isPresent();
+        assertThat(queries).hasValue(2);
+
+        table.add(Genre.builder().id(4).name("Триллер").build());
+        assertThat(cache.get(4)).isEmpty();
+        assertThat(queries).hasValue(2);
+
+        cache.reload();
+        assertThat(cache.get(4)).isPresent();
+        assertThat(queries).hasValue(3);
+    }
+}
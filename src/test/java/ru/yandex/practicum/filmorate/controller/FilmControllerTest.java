@@ -9,21 +9,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.jdbc.QueryTrackingFilter;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.SearchField;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -364,7 +380,7 @@ class FilmControllerTest {
 
     @Test
     void shouldListEmptyPopularFilms() throws Exception {
-        when(service.getPopularFilms(COUNT)).thenReturn(Collections.emptyList());
+        when(service.getPopularFilms(COUNT, null, null)).thenReturn(Collections.emptyList());
         this.mockMvc
                 .perform(get(url + "/popular?count=" + COUNT))
                 .andDo(print())
@@ -376,7 +392,7 @@ class FilmControllerTest {
     void shouldListPopularFilms() throws Exception {
         Film film1 = filmBuilder.id(1).name("Film_1 Title").build();
         Film film2 = filmBuilder.id(2).name("Film_2 Title").build();
-        when(service.getPopularFilms(2)).thenReturn(List.of(film1, film2));
+        when(service.getPopularFilms(2, null, null)).thenReturn(List.of(film1, film2));
 
         mockMvc.perform(get(url + "/popular?count=2"))
                 .andExpect(status().isOk())
@@ -384,6 +400,95 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$[0].id", is(1)));
     }
 
+    @Test
+    void shouldAnswerNotModifiedForCurrentFilmTags() throws Exception {
+        when(service.getFilmTag(1)).thenReturn("\"film-1-abc-5\"");
+        when(service.getFilmsTag()).thenReturn("\"films-abc-9\"");
+        when(service.getPopularFilmsTag(null)).thenReturn("\"films-abc-9\"");
+
+        mockMvc.perform(get(url + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"film-1-abc-5\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"film-1-abc-5\""))
+                .andExpect(content().string(""));
+        mockMvc.perform(get(url + "/popular").header(HttpHeaders.IF_NONE_MATCH, "\"films-abc-9\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).getFilmById(anyLong());
+        verify(service, never()).getPopularFilms(any(), any(), any());
+
+        when(service.getPopularFilms(COUNT, null, null)).thenReturn(List.of(filmBuilder.id(1).build()));
+        mockMvc.perform(get(url + "/popular").header(HttpHeaders.IF_NONE_MATCH, "\"films-abc-8\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"films-abc-9\""))
+                .andExpect(jsonPath("$[*].id", contains(1)));
+    }
+
+    @Test
+    void shouldReportQueryCountHeaders() throws Exception {
+        when(service.getAllFilms()).thenReturn(List.of(filmBuilder.id(1).build()));
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryTrackingFilter.QUERY_COUNT_HEADER, "0"))
+                .andExpect(header().exists(QueryTrackingFilter.QUERY_TIME_HEADER));
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreAndYear() throws Exception {
+        when(service.getPopularFilms(COUNT, 2, null)).thenReturn(List.of(filmBuilder.id(1).build()));
+        when(service.getPopularFilms(3, 2, 1999)).thenReturn(List.of(filmBuilder.id(4).build()));
+
+        mockMvc.perform(get(url + "/popular").param("genreId", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(1)));
+        mockMvc.perform(get(url + "/popular").param("count", "3").param("genreId", "2").param("year", "1999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(4)));
+        mockMvc.perform(get(url + "/popular").param("year", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldValidatePopularFilmsRequestBeforeAnsweringNotModified() throws Exception {
+        when(service.getPopularFilmsTag(99)).thenThrow(new NotFoundException("Genre with id 99 not found."));
+
+        mockMvc.perform(get(url + "/popular").param("genreId", "99")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"films-abc-9\""))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(url + "/popular").param("count", "0")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"films-abc-9\""))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).getPopularFilms(any(), any(), any());
+    }
+
+    @Test
+    void shouldSearchFilmsInRequestedFields() throws Exception {
+        when(service.searchFilms("matrix", EnumSet.allOf(SearchField.class), 20))
+                .thenReturn(List.of(filmBuilder.id(1).name("The Matrix").build()));
+        when(service.searchFilms("neo", EnumSet.of(SearchField.DESCRIPTION), 5))
+                .thenReturn(List.of(filmBuilder.id(2).build(), filmBuilder.id(3).build()));
+
+        mockMvc.perform(get(url + "/search").param("q", "matrix"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(1)));
+        mockMvc.perform(get(url + "/search").param("q", "neo").param("by", "Description").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(2, 3)));
+    }
+
+    @Test
+    void shouldRejectInvalidSearch() throws Exception {
+        mockMvc.perform(get(url + "/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(url + "/search").param("q", "matrix").param("by", "title,genre"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(url + "/search").param("q", "matrix").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).searchFilms(anyString(), any(), anyInt());
+    }
+
     @Test
     void shouldAddLike() throws Exception {
         when(service.addLike(1, 1)).thenReturn(List.of(1L));
@@ -402,4 +507,104 @@ class FilmControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()", is(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnPageWithNextCursor() throws Exception {
+        when(service.getFilmsPage(0, 2)).thenReturn(CursorPage.<Film>builder()
+                .items(List.of(filmBuilder.id(1).build(), filmBuilder.id(2).build()))
+                .nextCursor(2L)
+                .build());
+        mockMvc.perform(get(url).param("limit", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.nextCursor", is(2)));
+    }
+
+    @Test
+    void shouldReturnLastPageWithoutCursor() throws Exception {
+        when(service.getFilmsPage(2, 2)).thenReturn(CursorPage.<Film>builder()
+                .items(List.of(filmBuilder.id(3).build()))
+                .build());
+        mockMvc.perform(get(url).param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()", is(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectInvalidPageLimit() throws Exception {
+        mockMvc.perform(get(url).param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(url).param("limit", String.valueOf(CursorPage.MAX_LIMIT + 1)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamFilmsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Film> action = invocation.getArgument(0);
+            action.accept(filmBuilder.id(1).build());
+            action.accept(filmBuilder.id(2).build());
+            return null;
+        }).when(service).exportFilms(any());
+        MvcResult asyncResult = mockMvc.perform(get(url).accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(objectMapper.writeValueAsString(filmBuilder.id(1).build()), lines[0]);
+        assertEquals(objectMapper.writeValueAsString(filmBuilder.id(2).build()), lines[1]);
+    }
+
+    @Test
+    void shouldImportFilmsFromNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Iterator<Film> records = invocation.getArgument(0);
+            List<ImportResult> results = new ArrayList<>();
+            for (int index = 0; records.hasNext(); index++) {
+                try {
+                    records.next();
+                    results.add(ImportResult.created(index, index + 1));
+                } catch (RuntimeException e) {
+                    results.add(ImportResult.rejected(index, List.of("Unreadable record.")));
+                }
+            }
+            return results;
+        }).when(service).importFilms(any());
+        String body = objectMapper.writeValueAsString(filmBuilder.build()) + "\n" +
+                "{\"name\": \"Broken\", \"duration\": \"long\"}\n" +
+                objectMapper.writeValueAsString(filmBuilder.build()) + "\n";
+        mockMvc.perform(post(url + "/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].status", is("REJECTED")))
+                .andExpect(jsonPath("$[2].status", is("CREATED")))
+                .andExpect(jsonPath("$[2].index", is(2)));
+    }
+
+    @Test
+    void shouldImportFilmsFromJsonArray() throws Exception {
+        List<String> names = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterator<Film> records = invocation.getArgument(0);
+            records.forEachRemaining(record -> names.add(record.getName()));
+            return Collections.emptyList();
+        }).when(service).importFilms(any());
+        mockMvc.perform(post(url + "/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                filmBuilder.name("First").build(), filmBuilder.name("Second").build()))))
+                .andExpect(status().isOk());
+        assertEquals(List.of("First", "Second"), names);
+    }
+}
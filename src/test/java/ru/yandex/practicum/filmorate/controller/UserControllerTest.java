@@ -9,10 +9,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.text.SimpleDateFormat;
@@ -23,6 +27,9 @@ import java.util.Objects;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -39,6 +46,10 @@ class UserControllerTest {
     @Qualifier("DbUserService")
     private final UserService service;
 
+    @MockBean
+    @Qualifier("DbFilmService")
+    private final FilmService filmService;
+
     User user;
     String url = "/users";
 
@@ -354,6 +365,28 @@ class UserControllerTest {
                 .andExpect(content().json(json));
     }
 
+    @Test
+    void shouldAnswerNotModifiedForCurrentUserTag() throws Exception {
+        when(service.getUserTag(1)).thenReturn("\"user-1-abc-3\"");
+        when(service.getUsersTag()).thenReturn("\"users-abc-7\"");
+
+        mockMvc.perform(get(url + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"user-1-abc-3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"user-1-abc-3\""))
+                .andExpect(content().string(""));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"users-abc-7\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).findUserById(anyLong());
+        verify(service, never()).getAllUsers();
+
+        when(service.findUserById(1)).thenReturn(userBuilder.id(1).build());
+        mockMvc.perform(get(url + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"user-1-abc-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"user-1-abc-3\""))
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
     @Test
     void testFindUserByNonExistentId() throws Exception {
         when(service.findUserById(1)).thenThrow(new NotFoundException("User with id 1 not found."));
@@ -385,4 +418,57 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()", is(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnUsersPage() throws Exception {
+        when(service.getUsersPage(0, 1)).thenReturn(CursorPage.<User>builder()
+                .items(List.of(userBuilder.id(1).name("Name").build()))
+                .nextCursor(1L)
+                .build());
+        mockMvc.perform(get(url).param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.nextCursor", is(1)));
+    }
+
+    @Test
+    void shouldReturnFriendsPage() throws Exception {
+        when(service.getFriendsPage(1, 0, 2)).thenReturn(CursorPage.<User>builder()
+                .items(List.of(userBuilder.id(2).build(), userBuilder.id(3).build()))
+                .nextCursor(3L)
+                .build());
+        mockMvc.perform(get(url + "/1/friends").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor", is(3)));
+    }
+
+    @Test
+    void shouldReturnCommonFriendsCount() throws Exception {
+        when(service.getCommonFriendsCount(1, 2)).thenReturn(7);
+        mockMvc.perform(get(url + "/1/friends/common/2/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("7"));
+    }
+
+    @Test
+    void shouldReturnFriendRecommendations() throws Exception {
+        when(service.getFriendRecommendations(1, 5)).thenReturn(List.of(userBuilder.id(4).build()));
+        mockMvc.perform(get(url + "/1/friends/recommendations").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(4)));
+        mockMvc.perform(get(url + "/1/friends/recommendations").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnFilmRecommendations() throws Exception {
+        when(filmService.getRecommendations(1, 10)).thenReturn(List.of(Film.builder().id(7).name("Film").build()));
+        mockMvc.perform(get(url + "/1/recommendations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(7)));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedIntSetTest {
+
+    @Test
+    void shouldBehaveLikeSortedSetForSparseAndDenseValues() {
+        Random random = new Random(42);
+        for (int bound : new int[]{200_000, 9_000}) {
+            CompressedIntSet set = new CompressedIntSet();
+            CompressedIntSet other = new CompressedIntSet();
+            TreeSet<Integer> expected = new TreeSet<>();
+            TreeSet<Integer> expectedOther = new TreeSet<>();
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(bound);
+                if (random.nextInt(4) == 0) {
+                    assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+                } else {
+                    assertThat(set.add(value)).isEqualTo(expected.add(value));
+                }
+                int otherValue = random.nextInt(bound);
+                other.add(otherValue);
+                expectedOther.add(otherValue);
+            }
+            TreeSet<Integer> intersection = new TreeSet<>(expected);
+            intersection.retainAll(expectedOther);
+
+            assertThat(set.cardinality()).isEqualTo(expected.size());
+            assertThat(set.toArray()).containsExactly(expected.stream().mapToInt(Integer::intValue).toArray());
+            assertThat(set.and(other).toArray())
+                    .containsExactly(intersection.stream().mapToInt(Integer::intValue).toArray());
+            assertThat(set.andCardinality(other)).isEqualTo(intersection.size());
+            for (int i = 0; i < 1_000; i++) {
+                int value = random.nextInt(bound);
+                assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepFootprintCloseToTwoBytesPerSparseValueAndBoundedForDenseRanges() {
+        CompressedIntSet sparse = new CompressedIntSet();
+        for (int value = 0; value < 4_000; value++) {
+            sparse.add(value * 16);
+        }
+        assertThat(sparse.sizeInBytes()).isLessThan(2 * 4_096 + 256);
+
+        CompressedIntSet dense = new CompressedIntSet();
+        for (int value = 0; value < 100_000; value++) {
+            dense.add(value);
+        }
+        assertThat(dense.cardinality()).isEqualTo(100_000);
+        assertThat(dense.sizeInBytes()).isLessThan(2 * 8 * 1_024 + 512);
+    }
+}
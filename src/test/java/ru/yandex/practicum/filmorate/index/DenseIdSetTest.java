@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DenseIdSetTest {
+
+    @Test
+    void shouldOnlyAnswerAuthoritativelyUpToWatermarkOnceLoaded() {
+        DenseIdSet ids = new DenseIdSet();
+        assertThat(ids.isLoaded()).isFalse();
+        assertThat(ids.covers(1)).isFalse();
+
+        ids.load(new long[]{1, 2, 5});
+        assertThat(ids.covers(5)).isTrue();
+        assertThat(ids.contains(2)).isTrue();
+        assertThat(ids.contains(3)).isFalse();
+        assertThat(ids.covers(6)).isFalse();
+
+        ids.add(200);
+        assertThat(ids.covers(200)).isTrue();
+        assertThat(ids.contains(200)).isTrue();
+        assertThat(ids.contains(199)).isFalse();
+
+        ids.addProbed(1_000);
+        assertThat(ids.contains(1_000)).isTrue();
+        assertThat(ids.covers(999)).isFalse();
+    }
+
+    @Test
+    void shouldUseOneBitPerId() {
+        DenseIdSet ids = new DenseIdSet();
+        long[] all = new long[1_000_000];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i + 1;
+        }
+        ids.load(all);
+        assertThat(ids.sizeInBytes()).isLessThan(1_000_000 / 8 + 64);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.SearchField;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query latency over a million synthetic films. Excluded from the default build, run with {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+class FilmSearchIndexBenchmarkTest {
+
+    private static final int FILMS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 2_000;
+    private static final Set<SearchField> ALL = EnumSet.allOf(SearchField.class);
+
+    @Test
+    void shouldAnswerQueriesOverMillionFilmsQuickly() {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random);
+        }
+
+        long started = System.nanoTime();
+        FilmSearchIndex.Builder builder = new FilmSearchIndex.Builder();
+        for (int film = 1; film <= FILMS; film++) {
+            builder.add(film, sentence(random, words, 3), sentence(random, words, 20));
+        }
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.load(builder);
+        System.out.printf("Indexed %d films in %d ms: %d tokens, %d bytes of postings%n", FILMS,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), index.tokenCount(), index.sizeInBytes());
+
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = i % 2 == 0
+                    ? words[zipf(random)] + " " + words[zipf(random)]
+                    : words[zipf(random)].substring(0, 3);
+            long queryStarted = System.nanoTime();
+            index.search(query, ALL, 20);
+            latencies[i] = System.nanoTime() - queryStarted;
+        }
+        Arrays.sort(latencies);
+        long p50 = TimeUnit.NANOSECONDS.toMicros(latencies[QUERIES / 2]);
+        long p99 = TimeUnit.NANOSECONDS.toMicros(latencies[QUERIES * 99 / 100]);
+        System.out.printf("Search latency over %d queries: p50 %d us, p99 %d us%n", QUERIES, p50, p99);
+
+        assertThat(p99).isLessThan(TimeUnit.SECONDS.toMicros(1));
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    private static String sentence(Random random, String[] words, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sentence.append(words[zipf(random)]).append(' ');
+        }
+        return sentence.toString();
+    }
+
+    private static int zipf(Random random) {
+        return (int) Math.min(VOCABULARY - 1, Math.floor(Math.pow(VOCABULARY, random.nextDouble())) - 1);
+    }
+}
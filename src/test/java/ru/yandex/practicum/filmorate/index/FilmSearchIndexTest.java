@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.SearchField;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTest {
+
+    private static final Set<SearchField> ALL = EnumSet.allOf(SearchField.class);
+
+    @Test
+    void shouldTokenizeCaseInsensitivelyOnLettersAndDigits() {
+        assertThat(FilmSearchIndex.tokenize("Ёлки-2: Новый год, NEW year!"))
+                .containsExactly("елки", "2", "новый", "год", "new", "year");
+        assertThat(FilmSearchIndex.tokenize("  ...  ")).isEmpty();
+        assertThat(FilmSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void shouldRankTitleAboveDescriptionAndExactAbovePrefix() {
+        FilmSearchIndex.Builder builder = new FilmSearchIndex.Builder();
+        builder.add(1, "Space odyssey", "A journey");
+        builder.add(2, "Journey", "Through space");
+        builder.add(3, "Spaceballs", "Parody");
+        builder.add(4, "Alien", "In space no one can hear you scream");
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.load(builder);
+
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.search("space", ALL, 10)).containsExactly(1, 2, 3, 4);
+        assertThat(index.search("SPACE", EnumSet.of(SearchField.DESCRIPTION), 10)).containsExactly(2, 4);
+        assertThat(index.search("spa", EnumSet.of(SearchField.TITLE), 10)).containsExactly(1, 3);
+        assertThat(index.search("space", ALL, 2)).containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldRequireEveryTermAndMatchShortTermsExactly() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.load(new FilmSearchIndex.Builder());
+        index.add(1, "Toy story 2", "Toys come alive");
+        index.add(2, "Toy soldiers", "War story");
+        index.add(3, "The 25th hour", "Story of a last day");
+
+        assertThat(index.search("toy story", ALL, 10)).containsExactly(1, 2);
+        assertThat(index.search("story toy", EnumSet.of(SearchField.TITLE), 10)).containsExactly(1);
+        assertThat(index.search("2", ALL, 10)).containsExactly(1);
+        assertThat(index.search("toy missing", ALL, 10)).isEmpty();
+        assertThat(index.search(" ,. ", ALL, 10)).isEmpty();
+        assertThat(index.search("toy", EnumSet.noneOf(SearchField.class), 10)).isEmpty();
+    }
+
+    @Test
+    void shouldReplaceTokensOnUpdate() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.load(new FilmSearchIndex.Builder());
+        index.add(1, "Old title", "Shared words");
+        index.add(2, "Another film", "Shared words");
+        int tokens = index.tokenCount();
+
+        index.update(1, "Old title", "Shared words", "New name", "Shared words again");
+
+        assertThat(index.search("old", ALL, 10)).isEmpty();
+        assertThat(index.search("title", ALL, 10)).isEmpty();
+        assertThat(index.search("new name", ALL, 10)).containsExactly(1);
+        assertThat(index.search("shared", ALL, 10)).containsExactly(1, 2);
+        assertThat(index.tokenCount()).isEqualTo(tokens + 1);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendGraphTest {
+
+    private static final int USERS = 300;
+
+    @Test
+    void shouldMatchFriendshipRowsThroughUpdatesAndCompactions() {
+        Random random = new Random(7);
+        Map<Long, Boolean> rows = new HashMap<>();
+        FriendGraph.Rows initial = new FriendGraph.Rows();
+        for (int i = 0; i < 2_000; i++) {
+            int user = 1 + random.nextInt(USERS);
+            int friend = 1 + random.nextInt(USERS);
+            if (user != friend && !rows.containsKey(key(user, friend))) {
+                boolean status = random.nextBoolean();
+                rows.put(key(user, friend), status);
+                initial.add(user, friend, status);
+            }
+        }
+        FriendGraph graph = new FriendGraph();
+        graph.load(initial);
+        assertMatches(graph, rows);
+
+        for (int i = 0; i < 20_000; i++) {
+            int user = 1 + random.nextInt(USERS + 20);
+            int friend = 1 + random.nextInt(USERS + 20);
+            if (user == friend) {
+                continue;
+            }
+            Boolean status = rows.get(key(user, friend));
+            if (status == null) {
+                boolean newStatus = random.nextInt(4) == 0;
+                rows.put(key(user, friend), newStatus);
+                graph.addRow(user, friend, newStatus);
+            } else if (random.nextBoolean()) {
+                rows.put(key(user, friend), !status);
+                graph.setStatus(user, friend, !status);
+            } else {
+                rows.remove(key(user, friend));
+                graph.removeRow(user, friend);
+            }
+            if (i % 2_500 == 0) {
+                assertMatches(graph, rows);
+            }
+        }
+        assertMatches(graph, rows);
+        assertThat(graph.overlaySize()).isLessThan(USERS + 20);
+    }
+
+    @Test
+    void shouldCostFiveBytesPerEdgePlusFourBytesPerUser() {
+        FriendGraph.Rows rows = new FriendGraph.Rows();
+        for (int user = 1; user <= 1_000; user++) {
+            for (int friend = 1; friend <= 10; friend++) {
+                rows.add(user, (user + friend) % 1_000 + 1, friend % 2 == 0);
+            }
+        }
+        FriendGraph graph = new FriendGraph();
+        graph.load(rows);
+
+        assertThat(graph.edgeCount()).isEqualTo(15_000);
+        assertThat(graph.sizeInBytes()).isEqualTo(4L * 1_002 + 5L * 15_000);
+    }
+
+    @Test
+    void shouldIntersectSortedFriendLists() {
+        FriendGraph graph = new FriendGraph();
+        graph.load(new FriendGraph.Rows());
+        graph.addRow(3, 1, false);
+        graph.addRow(4, 1, false);
+        graph.addRow(1, 5, true);
+        graph.addRow(4, 2, false);
+        graph.addRow(5, 2, false);
+
+        assertThat(graph.friends(1)).containsExactly(3L, 4L, 5L);
+        assertThat(graph.friends(2)).containsExactly(4L, 5L);
+        assertThat(graph.friends(5)).isEmpty();
+        assertThat(graph.isFriend(1, 5)).isTrue();
+        assertThat(graph.isFriend(5, 1)).isFalse();
+        assertThat(graph.commonFriends(1, 2)).containsExactly(4L, 5L);
+        assertThat(graph.commonFriendsCount(1, 2)).isEqualTo(2);
+        assertThat(graph.friends(Long.MAX_VALUE)).isEmpty();
+    }
+
+    private static void assertMatches(FriendGraph graph, Map<Long, Boolean> rows) {
+        Map<Integer, TreeSet<Long>> expected = new HashMap<>();
+        rows.forEach((key, status) -> {
+            int user = (int) (key >>> 32);
+            int friend = (int) (long) key;
+            expected.computeIfAbsent(friend, id -> new TreeSet<>()).add((long) user);
+            if (status) {
+                expected.computeIfAbsent(user, id -> new TreeSet<>()).add((long) friend);
+            }
+        });
+        int edges = 0;
+        for (int user = 0; user <= USERS + 21; user++) {
+            TreeSet<Long> friends = expected.getOrDefault(user, new TreeSet<>());
+            edges += friends.size();
+            assertThat(graph.friends(user)).containsExactly(friends.stream().mapToLong(Long::longValue).toArray());
+        }
+        assertThat(graph.edgeCount()).isEqualTo(edges);
+    }
+
+    private static long key(int user, int friend) {
+        return (long) user << 32 | friend;
+    }
+}
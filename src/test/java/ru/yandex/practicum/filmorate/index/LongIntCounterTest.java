@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntCounterTest {
+
+    @Test
+    void shouldCountLikeHashMapAndMergeCounters() {
+        Random random = new Random(11);
+        LongIntCounter counter = new LongIntCounter(Integer.MAX_VALUE);
+        LongIntCounter other = new LongIntCounter(Integer.MAX_VALUE);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000);
+            LongIntCounter target = random.nextBoolean() ? counter : other;
+            target.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+        counter.addAll(other);
+
+        assertThat(counter.size()).isEqualTo(expected.size());
+        expected.forEach((key, count) -> assertThat(counter.get(key)).isEqualTo(count));
+        assertThat(counter.get(10_000)).isZero();
+    }
+
+    @Test
+    void shouldRankByCountThenByIdAndSkipExcluded() {
+        LongIntCounter counter = new LongIntCounter(100);
+        counter.add(5, 3);
+        counter.add(2, 3);
+        counter.add(9, 7);
+        counter.add(4, 1);
+        counter.add(7, 3);
+
+        assertThat(counter.top(3, id -> false)).containsExactly(9, 2, 5);
+        assertThat(counter.top(10, id -> id == 9 || id == 2)).containsExactly(5, 7, 4);
+        assertThat(counter.top(0, id -> false)).isEmpty();
+    }
+
+    @Test
+    void shouldStopAdmittingNewKeysAtCapacity() {
+        LongIntCounter counter = new LongIntCounter(2);
+        assertThat(counter.increment(1)).isTrue();
+        assertThat(counter.increment(2)).isTrue();
+        assertThat(counter.increment(3)).isFalse();
+        assertThat(counter.increment(1)).isTrue();
+
+        assertThat(counter.size()).isEqualTo(2);
+        assertThat(counter.get(1)).isEqualTo(2);
+        assertThat(counter.get(3)).isZero();
+    }
+
+    @Test
+    void shouldRetainTopCounts() {
+        LongIntCounter counter = new LongIntCounter(Integer.MAX_VALUE);
+        for (long key = 0; key < 100; key++) {
+            counter.add(key, (int) (key % 10));
+        }
+
+        counter.retainTop(3);
+
+        assertThat(counter.size()).isEqualTo(3);
+        assertThat(counter.top(10, id -> false)).containsExactly(9, 19, 29);
+        assertThat(counter.get(19)).isEqualTo(9);
+        assertThat(counter.get(8)).isZero();
+    }
+}
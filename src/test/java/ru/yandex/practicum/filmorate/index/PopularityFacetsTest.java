@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PopularityFacetsTest {
+
+    @Test
+    void shouldRankWithinGenreYearAndBoth() {
+        PopularityFacets facets = new PopularityFacets();
+        facets.load(Map.of(1L, 3L, 2L, 5L, 3L, 1L),
+                Map.of(1L, 2000, 2L, 2000, 3L, 1999),
+                Map.of(1L, List.of(1), 2L, List.of(1, 2), 3L, List.of(2)));
+
+        assertThat(facets.top(10, 1, null)).containsExactly(2L, 1L);
+        assertThat(facets.top(10, 2, null)).containsExactly(2L, 3L);
+        assertThat(facets.top(10, null, 1999)).containsExactly(3L);
+        assertThat(facets.top(10, 1, 2000)).containsExactly(2L, 1L);
+        assertThat(facets.top(10, 1, 1999)).isEmpty();
+        assertThat(facets.top(1, null, 2000)).containsExactly(2L);
+        assertThatThrownBy(() -> facets.top(10, null, null)).isInstanceOf(IllegalArgumentException.class);
+
+        facets.changeLikes(3, 10);
+        facets.removeGenre(2, 2);
+        facets.putFilm(1, 1999, List.of(2));
+        facets.putFilm(4, 1999, List.of());
+
+        assertThat(facets.top(10, 2, null)).containsExactly(3L, 1L);
+        assertThat(facets.top(10, null, 1999)).containsExactly(3L, 1L, 4L);
+        assertThat(facets.top(10, 1, 2000)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldMatchFilteringTheFullRanking() {
+        Random random = new Random(17);
+        PopularityFacets facets = new PopularityFacets();
+        facets.load(Map.of(), Map.of(), Map.of());
+        Map<Long, Integer> years = new HashMap<>();
+        Map<Long, Set<Integer>> genres = new HashMap<>();
+        Map<Long, Long> likes = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            long filmId = 1 + random.nextInt(300);
+            int action = random.nextInt(10);
+            if (!years.containsKey(filmId) || action == 0) {
+                int year = 1990 + random.nextInt(5);
+                Set<Integer> genreIds = new HashSet<>();
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    genreIds.add(1 + random.nextInt(6));
+                }
+                years.put(filmId, year);
+                genres.put(filmId, genreIds);
+                likes.putIfAbsent(filmId, 0L);
+                facets.putFilm(filmId, year, genreIds);
+            } else if (action == 1) {
+                int genreId = 1 + random.nextInt(6);
+                genres.get(filmId).add(genreId);
+                facets.addGenre(filmId, genreId);
+            } else if (action == 2) {
+                int genreId = 1 + random.nextInt(6);
+                genres.get(filmId).remove(genreId);
+                facets.removeGenre(filmId, genreId);
+            } else {
+                long delta = random.nextInt(3) == 0 ? -1 : 1;
+                likes.put(filmId, Math.max(0, likes.get(filmId) + delta));
+                facets.changeLikes(filmId, delta);
+            }
+        }
+
+        for (int genreId = 1; genreId <= 6; genreId++) {
+            for (int year = 1990; year < 1995; year++) {
+                assertThat(facets.top(20, genreId, null)).isEqualTo(expectedTop(likes, years, genres, genreId, null));
+                assertThat(facets.top(20, null, year)).isEqualTo(expectedTop(likes, years, genres, null, year));
+                assertThat(facets.top(20, genreId, year)).isEqualTo(expectedTop(likes, years, genres, genreId, year));
+            }
+        }
+    }
+
+    private static List<Long> expectedTop(Map<Long, Long> likes, Map<Long, Integer> years,
+                                          Map<Long, Set<Integer>> genres, Integer genreId, Integer year) {
+        return new ArrayList<>(likes.keySet()).stream()
+                .filter(filmId -> genreId == null || genres.get(filmId).contains(genreId))
+                .filter(filmId -> year == null || years.get(filmId).equals(year))
+                .sorted(Comparator.comparing((Long filmId) -> likes.get(filmId)).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(20)
+                .collect(Collectors.toList());
+    }
+}
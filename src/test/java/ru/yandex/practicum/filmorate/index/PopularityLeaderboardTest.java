@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PopularityLeaderboardTest {
+
+    @Test
+    void shouldOrderByLikesThenByFilmId() {
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard();
+        leaderboard.load(Map.of(1L, 0L, 2L, 5L, 3L, 5L, 4L, 1L));
+
+        assertThat(leaderboard.top(10)).containsExactly(2L, 3L, 4L, 1L);
+        assertThat(leaderboard.top(2)).containsExactly(2L, 3L);
+        assertThat(leaderboard.top(0)).isEmpty();
+
+        leaderboard.changeLikes(1, 6);
+        leaderboard.changeLikes(2, -1);
+        leaderboard.addFilm(5);
+        assertThat(leaderboard.top(10)).containsExactly(1L, 3L, 2L, 4L, 5L);
+        assertThat(leaderboard.getLikes(2)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNeverDropOrDuplicateFilmsUnderConcurrentUpdates() throws InterruptedException {
+        Map<Long, Long> likesByFilm = new HashMap<>();
+        for (long filmId = 1; filmId <= 20; filmId++) {
+            likesByFilm.put(filmId, filmId % 4);
+        }
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard();
+        leaderboard.load(likesByFilm);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        CountDownLatch writers = new CountDownLatch(4);
+        Queue<List<Long>> inconsistent = new ConcurrentLinkedQueue<>();
+        for (long filmId = 1; filmId <= 3; filmId++) {
+            long id = filmId;
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    leaderboard.changeLikes(id, i % 2 == 0 ? 5 : -5);
+                }
+                writers.countDown();
+            });
+        }
+        executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                leaderboard.load(likesByFilm);
+            }
+            writers.countDown();
+        });
+        executor.submit(() -> {
+            while (writers.getCount() > 0) {
+                List<Long> top = leaderboard.top(20);
+                if (!Set.copyOf(top).equals(likesByFilm.keySet()) || top.size() != 20) {
+                    inconsistent.add(top);
+                }
+            }
+        });
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(inconsistent).isEmpty();
+        assertThat(leaderboard.top(20)).hasSize(20).doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the number of statements a call may run, so that a change turning a batched read into a query per row
+ * fails the build.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static QueryLog assertMaxQueries(int max, Runnable action) {
+        QueryLog queries = QueryTracker.track(action);
+        assertThat(queries.getCount())
+                .as("statements run: %s", queries.getStatements())
+                .isLessThanOrEqualTo(max);
+        return queries;
+    }
+
+    public static QueryLog assertNoRepeatedQueries(int threshold, Runnable action) {
+        QueryLog queries = QueryTracker.track(action);
+        assertThat(queries.getRepeatedStatements(threshold))
+                .as("statements run: %s", queries.getStatements())
+                .isEmpty();
+        return queries;
+    }
+}
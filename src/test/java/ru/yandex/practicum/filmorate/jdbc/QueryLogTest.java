@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryLogTest {
+
+    @Test
+    void shouldGroupStatementsByShape() {
+        QueryLog queries = QueryTracker.track(() -> {
+            QueryTracker.record("SELECT * FROM films WHERE film_id IN (?, ?, ?)", 1_000_000);
+            QueryTracker.record("SELECT *\n  FROM films WHERE film_id IN (?,?)", 1_000_000);
+            QueryTracker.record("SELECT * FROM genre WHERE genre_id = ?", 500_000);
+            QueryTracker.record(null, 500_000);
+        });
+
+        assertEquals(4, queries.getCount());
+        assertEquals(3.0, queries.getTotalMillis());
+        assertThat(queries.getStatements()).containsExactly(
+                Map.entry("SELECT * FROM films WHERE film_id IN (?, ...)", 2),
+                Map.entry("SELECT * FROM genre WHERE genre_id = ?", 1),
+                Map.entry("<batch>", 1));
+        assertThat(queries.getRepeatedStatements(2)).containsOnlyKeys("SELECT * FROM films WHERE film_id IN (?, ...)");
+    }
+
+    @Test
+    void shouldReportNestedScopesToOuterScope() {
+        QueryLog outer = QueryTracker.start();
+        QueryTracker.record("SELECT 1", 0);
+        QueryLog inner = QueryTracker.track(() -> QueryTracker.record("SELECT 2", 0));
+        QueryTracker.stop(outer);
+        QueryTracker.record("SELECT 3", 0);
+
+        assertEquals(1, inner.getCount());
+        assertEquals(2, outer.getCount());
+    }
+}
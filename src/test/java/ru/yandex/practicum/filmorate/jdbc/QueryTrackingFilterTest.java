@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = QueryTrackingFilterTest.StreamingController.class)
+@Import(QueryTrackingFilterTest.StreamingController.class)
+class QueryTrackingFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldTrackStatementsOfAsynchronousRequests() throws Exception {
+        MvcResult asyncResult = mockMvc.perform(get("/query-tracking/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string("xx"))
+                .andExpect(header().doesNotExist(QueryTrackingFilter.QUERY_COUNT_HEADER));
+
+        QueryLog queries = (QueryLog) asyncResult.getRequest().getAttribute(QueryTrackingFilter.QUERY_LOG_ATTRIBUTE);
+        assertThat(queries.getStatements()).containsOnlyKeys("SELECT 1", "SELECT * FROM films WHERE film_id = ?");
+        assertThat(queries.getCount()).isEqualTo(3);
+    }
+
+    @RequestMapping("/query-tracking")
+    static class StreamingController {
+
+        @GetMapping("/stream")
+        public StreamingResponseBody stream() {
+            QueryTracker.record("SELECT 1", 1_000);
+            return outputStream -> {
+                for (int i = 0; i < 2; i++) {
+                    QueryTracker.record("SELECT * FROM films WHERE film_id = ?", 1_000);
+                    outputStream.write('x');
+                }
+            };
+        }
+    }
+}
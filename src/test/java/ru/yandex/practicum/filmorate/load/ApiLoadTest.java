@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.load.DatasetGenerator.skewed;
+
+/**
+ * Fixed-arrival-rate load against the REST API of an in-memory database seeded by
+ * {@link DatasetGenerator}. Excluded from the default build, run with
+ * {@code mvn test -P benchmark -Dtest=ApiLoadTest}; {@code load.*} system properties set the rate, duration,
+ * dataset size in rows and the request mix, e.g. {@code -Dload.rate=500 -Dload.mix=popular=3,like=1}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.ru.yandex.practicum=INFO",
+        "logging.level.org.zalando.logbook=OFF"
+})
+@AutoConfigureTestDatabase
+@Slf4j
+class ApiLoadTest {
+
+    private static final String DEFAULT_MIX = "films=5,popular=35,like=25,friend=15,common-friends=20";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private List<RebuildableIndex> indexes;
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void shouldSustainRequestMixAtFixedRate() throws InterruptedException {
+        DatasetGenerator datasets = new DatasetGenerator(jdbcTemplate, 42);
+        datasets.clear();
+        DatasetGenerator.Dataset dataset = datasets.generate(
+                DatasetGenerator.Scale.ofRows(Long.getLong("load.rows", 100_000)));
+        indexes.forEach(RebuildableIndex::rebuild);
+
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port),
+                endpoints(System.getProperty("load.mix", DEFAULT_MIX), dataset.getUsers(), dataset.getFilms()));
+        LoadGenerator.Report report = generator.run(
+                Double.parseDouble(System.getProperty("load.rate", "200")),
+                Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 5)),
+                Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 30)),
+                Integer.getInteger("load.threads", 64),
+                Long.getLong("load.seed", 7));
+        log.info("Load test over {}:\n{}", dataset, report);
+
+        assertThat(report.getCount()).isPositive();
+        assertThat(report.getErrors()).isLessThanOrEqualTo(report.getCount() / 100);
+    }
+
+    private static List<LoadGenerator.Endpoint> endpoints(String mix, int users, int films) {
+        Map<String, LoadGenerator.RequestFactory> catalog = new LinkedHashMap<>();
+        catalog.put("films", (base, random) -> get(base, "/films"));
+        catalog.put("popular", (base, random) -> get(base, "/films/popular?count=10"));
+        catalog.put("like", (base, random) -> put(base,
+                "/films/" + skewed(random, films) + "/like/" + (1 + random.nextInt(users))));
+        catalog.put("friend", (base, random) -> {
+            long id = 1 + random.nextInt(users);
+            long friendId = 1 + (id + random.nextInt(users - 1)) % users;
+            return put(base, "/users/" + id + "/friends/" + friendId);
+        });
+        catalog.put("common-friends", (base, random) -> get(base,
+                "/users/" + skewed(random, users) + "/friends/common/" + skewed(random, users)));
+
+        List<LoadGenerator.Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            LoadGenerator.RequestFactory requests = catalog.get(nameAndWeight[0]);
+            if (requests == null) {
+                throw new IllegalArgumentException("Unknown endpoint " + nameAndWeight[0] + ", expected one of "
+                        + catalog.keySet());
+            }
+            endpoints.add(new LoadGenerator.Endpoint(nameAndWeight[0], Integer.parseInt(nameAndWeight[1]), requests));
+        }
+        return endpoints;
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static HttpRequest put(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+}
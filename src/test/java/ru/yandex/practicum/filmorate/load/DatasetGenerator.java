@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic synthetic data written straight into the schema with batched inserts. Ids are assigned
+ * explicitly, from 1, so requests can address rows without reading them back. Film popularity, user activity
+ * and friend counts follow power laws: low ids are the popular films and the well-connected users, and a user
+ * only befriends users registered before them, so no friendship is stored in both directions. The same seed
+ * and scale always produce the same rows. Indexes built over the tables have to be rebuilt afterwards.
+ */
+public class DatasetGenerator {
+
+    public static final String[] WORDS = {
+            "love", "war", "night", "city", "dream", "river", "star", "shadow", "king", "game",
+            "road", "fire", "ghost", "summer", "winter", "island", "secret", "storm", "heart", "last",
+            "light", "blood", "garden", "train", "ocean", "empire", "silent", "wild", "golden", "lost"
+    };
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    public void clear() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "likes", "friendship", "film_genre", "films", "users");
+        jdbcTemplate.update("ALTER TABLE USERS ALTER COLUMN user_id RESTART WITH 1");
+        jdbcTemplate.update("ALTER TABLE FILMS ALTER COLUMN film_id RESTART WITH 1");
+    }
+
+    /**
+     * Fills empty tables; see {@link #clear()}.
+     */
+    public Dataset generate(Scale scale) {
+        Dataset dataset = new Dataset(scale.users, scale.films);
+        insertUsers(dataset, new Random(seed));
+        insertFilms(dataset, new Random(seed + 1));
+        insertFriendships(dataset, scale.friendsPerUser, new Random(seed + 2));
+        insertLikes(dataset, scale.likesPerUser, new Random(seed + 3));
+        jdbcTemplate.update("ALTER TABLE USERS ALTER COLUMN user_id RESTART WITH " + (scale.users + 1));
+        jdbcTemplate.update("ALTER TABLE FILMS ALTER COLUMN film_id RESTART WITH " + (scale.films + 1));
+        return dataset;
+    }
+
+    /**
+     * An id in {@code [1, n]} from a power law, so that a few low ids attract most of the picks.
+     */
+    public static int skewed(Random random, int n) {
+        return 1 + (int) (n * Math.pow(random.nextDouble(), 3));
+    }
+
+    /**
+     * A Pareto-distributed count with the given mean, capped at {@code max}. The fraction is rounded up with
+     * its own probability, so that truncation does not lower the mean.
+     */
+    static int powerLaw(Random random, double mean, int max) {
+        double scale = mean / 2;
+        double count = scale / Math.sqrt(1 - random.nextDouble());
+        int whole = (int) count;
+        if (random.nextDouble() < count - whole) {
+            whole++;
+        }
+        return Math.min(max, whole);
+    }
+
+    /**
+     * Exactly {@code count} distinct ids drawn with {@link #skewed(Random, int)}, or all of {@code [1, n]} if
+     * {@code n} is smaller, so that repeated picks do not shrink the row counts.
+     */
+    static Set<Integer> distinctSkewed(Random random, int count, int n) {
+        Set<Integer> ids = new HashSet<>();
+        int target = Math.min(count, n);
+        while (ids.size() < target) {
+            ids.add(skewed(random, n));
+        }
+        return ids;
+    }
+
+    private void insertUsers(Dataset dataset, Random random) {
+        Batch batch = new Batch("INSERT INTO users(user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)");
+        for (int id = 1; id <= dataset.users; id++) {
+            batch.add(id, "user" + id + "@example.com", "user" + id, "User " + id,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(55), 1 + random.nextInt(12),
+                            1 + random.nextInt(28))));
+        }
+        batch.flush();
+    }
+
+    private void insertFilms(Dataset dataset, Random random) {
+        Batch films = new Batch("INSERT INTO films(film_id, name, description, release_date, duration, mpa_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)");
+        Batch genres = new Batch("INSERT INTO film_genre(film_id, genre_id) VALUES (?, ?)");
+        for (int id = 1; id <= dataset.films; id++) {
+            String name = word(random) + " " + word(random);
+            String description = "The " + word(random) + " of the " + word(random) + " and the " + word(random);
+            films.add(id, name, description,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12),
+                            1 + random.nextInt(28))),
+                    80 + random.nextInt(100), 1 + random.nextInt(MPA_RATINGS));
+            for (int genreId : distinctSkewed(random, random.nextInt(4), GENRES)) {
+                genres.add(id, genreId);
+                dataset.filmGenres++;
+            }
+        }
+        films.flush();
+        genres.flush();
+    }
+
+    private void insertFriendships(Dataset dataset, double friendsPerUser, Random random) {
+        Batch batch = new Batch("INSERT INTO friendship(user_id, friend_id, status) VALUES (?, ?, ?)");
+        for (int id = 2; id <= dataset.users; id++) {
+            for (int friendId : distinctSkewed(random, powerLaw(random, friendsPerUser, id - 1), id - 1)) {
+                batch.add(id, friendId, random.nextBoolean());
+                dataset.friendships++;
+            }
+        }
+        batch.flush();
+    }
+
+    private void insertLikes(Dataset dataset, double likesPerUser, Random random) {
+        Batch batch = new Batch("INSERT INTO likes(film_id, user_id) VALUES (?, ?)");
+        for (int id = 1; id <= dataset.users; id++) {
+            for (int filmId : distinctSkewed(random, powerLaw(random, likesPerUser, dataset.films), dataset.films)) {
+                batch.add(filmId, id);
+                dataset.likes++;
+            }
+        }
+        batch.flush();
+    }
+
+    private static String word(Random random) {
+        return WORDS[skewed(random, WORDS.length) - 1];
+    }
+
+    private class Batch {
+
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+        private Batch(String sql) {
+            this.sql = sql;
+        }
+
+        private void add(Object... row) {
+            rows.add(row);
+            if (rows.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * Table sizes to aim for. {@link #ofRows(long)} splits a total row count the way a mature catalogue does:
+     * a twentieth each for users and films, 1.5 genres per film, five friends and the rest in likes per user, each
+     * on average. Caps at the number of earlier users or films make small scales come out a little short.
+     */
+    public static class Scale {
+
+        private final int users;
+        private final int films;
+        private final double friendsPerUser;
+        private final double likesPerUser;
+
+        public Scale(int users, int films, double friendsPerUser, double likesPerUser) {
+            this.users = users;
+            this.films = films;
+            this.friendsPerUser = friendsPerUser;
+            this.likesPerUser = likesPerUser;
+        }
+
+        public static Scale ofRows(long rows) {
+            int users = (int) Math.max(10, rows / 20);
+            int films = (int) Math.max(10, rows / 20);
+            double friendsPerUser = 5;
+            double likesPerUser = Math.max(1, (rows - users - 2.5 * films - friendsPerUser * users) / users);
+            return new Scale(users, films, friendsPerUser, likesPerUser);
+        }
+    }
+
+    public static class Dataset {
+
+        private final int users;
+        private final int films;
+        private long filmGenres;
+        private long friendships;
+        private long likes;
+
+        private Dataset(int users, int films) {
+            this.users = users;
+            this.films = films;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public int getFilms() {
+            return films;
+        }
+
+        public long getFilmGenres() {
+            return filmGenres;
+        }
+
+        public long getFriendships() {
+            return friendships;
+        }
+
+        public long getLikes() {
+            return likes;
+        }
+
+        public long getRows() {
+            return users + films + filmGenres + friendships + likes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows: %d users, %d films, %d film genres, %d friendships, %d likes",
+                    getRows(), users, films, filmGenres, friendships, likes);
+        }
+    }
+}
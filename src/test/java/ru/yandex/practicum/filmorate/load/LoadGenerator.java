@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load driver. Requests are issued on a fixed schedule whatever the server's response times, and
+ * every latency is measured from the moment its request was due rather than from when it was sent, so a stalled
+ * server shows up in the percentiles instead of quietly lowering the offered load.
+ */
+public class LoadGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI baseUri;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+
+    public LoadGenerator(URI baseUri, List<Endpoint> endpoints) {
+        this.baseUri = baseUri;
+        this.endpoints = List.copyOf(endpoints);
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::getWeight).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The request mix is empty.");
+        }
+    }
+
+    /**
+     * Offers {@code requestsPerSecond} for the warm-up and then for the measured duration; only requests due in
+     * the measured window are recorded. The random source picks endpoints and their parameters, so a given seed
+     * replays the same request sequence.
+     */
+    public Report run(double requestsPerSecond, Duration warmup, Duration duration, int threads, long seed)
+            throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long warmupRequests = warmup.toNanos() / interval;
+        long totalRequests = warmupRequests + duration.toNanos() / interval;
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> stats.put(endpoint.getName(), new EndpointStats(endpoint.getName())));
+        Random random = new Random(seed);
+        ExecutorService senders = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            for (long i = 0; i < totalRequests; i++) {
+                long due = start + i * interval;
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                Endpoint endpoint = pick(random);
+                HttpRequest request = endpoint.getRequests().create(baseUri, random);
+                EndpointStats recorder = i < warmupRequests ? null : stats.get(endpoint.getName());
+                senders.execute(() -> send(request, due, recorder));
+            }
+        } finally {
+            senders.shutdown();
+            senders.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return new Report(new ArrayList<>(stats.values()), duration);
+    }
+
+    private void send(HttpRequest request, long due, EndpointStats stats) {
+        boolean failed;
+        try {
+            failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (stats != null) {
+            stats.record(System.nanoTime() - due, failed);
+        }
+    }
+
+    private Endpoint pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.getWeight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    @FunctionalInterface
+    public interface RequestFactory {
+
+        HttpRequest create(URI baseUri, Random random);
+    }
+
+    public static class Endpoint {
+
+        private final String name;
+        private final int weight;
+        private final RequestFactory requests;
+
+        public Endpoint(String name, int weight, RequestFactory requests) {
+            this.name = name;
+            this.weight = weight;
+            this.requests = requests;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public RequestFactory getRequests() {
+            return requests;
+        }
+    }
+
+    public static class EndpointStats {
+
+        private final String name;
+        private final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+
+        private EndpointStats(String name) {
+            this.name = name;
+        }
+
+        private void record(long latencyNanos, boolean failed) {
+            latencies.recordValue(latencyNanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return latencies.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        public double maxMillis() {
+            return latencies.getMaxValue() / 1e6;
+        }
+    }
+
+    public static class Report {
+
+        private final List<EndpointStats> endpoints;
+        private final Duration duration;
+
+        private Report(List<EndpointStats> endpoints, Duration duration) {
+            this.endpoints = Collections.unmodifiableList(endpoints);
+            this.duration = duration;
+        }
+
+        public List<EndpointStats> getEndpoints() {
+            return endpoints;
+        }
+
+        public long getCount() {
+            return endpoints.stream().mapToLong(EndpointStats::getCount).sum();
+        }
+
+        public long getErrors() {
+            return endpoints.stream().mapToLong(EndpointStats::getErrors).sum();
+        }
+
+        public double throughput(EndpointStats stats) {
+            return stats.getCount() * 1000.0 / duration.toMillis();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-16s %8s %9s %9s %9s %9s %9s %7s%n",
+                    "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+            for (EndpointStats stats : endpoints) {
+                table.append(String.format(Locale.ROOT, "%-16s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                        stats.getName(), stats.getCount(), throughput(stats), stats.percentileMillis(50),
+                        stats.percentileMillis(99), stats.percentileMillis(99.9), stats.maxMillis(),
+                        stats.getErrors()));
+            }
+            return table.toString();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.index.RebuildableIndex;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.load.DatasetGenerator.skewed;
+
+/**
+ * Latency and SQL statements per request of every endpoint at growing dataset sizes. For each scale the tables
+ * are refilled by {@link DatasetGenerator}, the indexes rebuilt, and every endpoint called sequentially with
+ * power-law distributed ids. Client errors such as removing a friendship that does not exist are expected, server
+ * errors fail the run. Statements are counted by H2's {@code INFORMATION_SCHEMA.QUERY_STATISTICS}. Result
+ * caches are off so that the numbers show how the storages scale. The comparison is logged and written to
+ * {@code target/scalability-report.md}. Excluded from the default build, run with
+ * {@code mvn test -P benchmark -Dtest=ScalabilityBenchmarkTest -Dscale.rows=10000,100000,1000000}; ten million
+ * rows need a larger heap than the profile's default.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cache.type=none",
+        "logging.level.ru.yandex.practicum=INFO",
+        "logging.level.org.zalando.logbook=OFF"
+})
+@AutoConfigureTestDatabase
+@Slf4j
+class ScalabilityBenchmarkTest {
+
+    private static final String EXECUTED_STATEMENTS = "SELECT COALESCE(SUM(execution_count), 0) " +
+            "FROM information_schema.query_statistics WHERE sql_statement NOT LIKE '%QUERY_STATISTICS%'";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private List<RebuildableIndex> indexes;
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void shouldReportLatencyAndQueryCountPerEndpointAndScale() throws IOException, InterruptedException {
+        long[] scales = Arrays.stream(System.getProperty("scale.rows", "10000,100000").split(","))
+                .mapToLong(rows -> Long.parseLong(rows.trim()))
+                .toArray();
+        int requests = Integer.getInteger("scale.requests", 20);
+        DatasetGenerator datasets = new DatasetGenerator(jdbcTemplate, Long.getLong("scale.seed", 42));
+        Map<String, List<Result>> results = new LinkedHashMap<>();
+        List<DatasetGenerator.Dataset> generated = new ArrayList<>();
+
+        jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 10000");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        try {
+            for (long rows : scales) {
+                datasets.clear();
+                DatasetGenerator.Dataset dataset = datasets.generate(DatasetGenerator.Scale.ofRows(rows));
+                indexes.forEach(RebuildableIndex::rebuild);
+                generated.add(dataset);
+                log.info("Generated {}", dataset);
+
+                Random random = new Random(rows);
+                for (Map.Entry<String, BiFunction<Random, DatasetGenerator.Dataset, HttpRequest>> probe :
+                        probes().entrySet()) {
+                    Result result = measure(probe.getValue(), dataset, random, requests);
+                    assertThat(result.serverErrors).as(probe.getKey() + " at " + rows + " rows").isZero();
+                    results.computeIfAbsent(probe.getKey(), key -> new ArrayList<>()).add(result);
+                }
+            }
+        } finally {
+            jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        }
+
+        String report = report(generated, results);
+        log.info("Scalability report:\n{}", report);
+        Path target = Paths.get("target", "scalability-report.md");
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, report);
+    }
+
+    private Result measure(BiFunction<Random, DatasetGenerator.Dataset, HttpRequest> probe,
+                           DatasetGenerator.Dataset dataset, Random random, int requests)
+            throws IOException, InterruptedException {
+        Histogram latencies = new Histogram(3);
+        int serverErrors = 0;
+        long statementsBefore = executedStatements();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = probe.apply(random, dataset);
+            long start = System.nanoTime();
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            latencies.recordValue(System.nanoTime() - start);
+            if (status >= 500) {
+                serverErrors++;
+            }
+        }
+        double statements = (double) (executedStatements() - statementsBefore) / requests;
+        return new Result(latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(99) / 1e6,
+                statements, serverErrors);
+    }
+
+    private long executedStatements() {
+        Long executed = jdbcTemplate.queryForObject(EXECUTED_STATEMENTS, Long.class);
+        return executed == null ? 0 : executed;
+    }
+
+    private Map<String, BiFunction<Random, DatasetGenerator.Dataset, HttpRequest>> probes() {
+        Map<String, BiFunction<Random, DatasetGenerator.Dataset, HttpRequest>> probes = new LinkedHashMap<>();
+        probes.put("GET /films", (random, data) -> get("/films"));
+        probes.put("GET /films?limit", (random, data) ->
+                get("/films?limit=100&after=" + random.nextInt(data.getFilms())));
+        probes.put("GET /films/{id}", (random, data) -> get("/films/" + skewed(random, data.getFilms())));
+        probes.put("GET /films/popular", (random, data) -> get("/films/popular?count=" + (1 + random.nextInt(50))));
+        probes.put("GET /films/popular?genreId&year", (random, data) ->
+                get("/films/popular?count=10&genreId=" + (1 + random.nextInt(6))
+                        + "&year=" + (1950 + random.nextInt(70))));
+        probes.put("GET /films/search", (random, data) ->
+                get("/films/search?q=" + DatasetGenerator.WORDS[random.nextInt(DatasetGenerator.WORDS.length)]));
+        probes.put("GET /users", (random, data) -> get("/users"));
+        probes.put("GET /users?limit", (random, data) ->
+                get("/users?limit=100&after=" + random.nextInt(data.getUsers())));
+        probes.put("GET /users/{id}", (random, data) -> get("/users/" + skewed(random, data.getUsers())));
+        probes.put("GET /users/{id}/friends", (random, data) ->
+                get("/users/" + skewed(random, data.getUsers()) + "/friends"));
+        probes.put("GET /users/{id}/friends/common/{otherId}", (random, data) ->
+                get("/users/" + skewed(random, data.getUsers())
+                        + "/friends/common/" + skewed(random, data.getUsers())));
+        probes.put("GET /users/{id}/friends/recommendations", (random, data) ->
+                get("/users/" + skewed(random, data.getUsers()) + "/friends/recommendations"));
+        probes.put("GET /users/{id}/recommendations", (random, data) ->
+                get("/users/" + skewed(random, data.getUsers()) + "/recommendations"));
+        probes.put("GET /genres", (random, data) -> get("/genres"));
+        probes.put("GET /mpa", (random, data) -> get("/mpa"));
+        probes.put("PUT /films/{id}/like/{userId}", (random, data) -> send("PUT",
+                "/films/" + skewed(random, data.getFilms()) + "/like/" + (1 + random.nextInt(data.getUsers()))));
+        probes.put("DELETE /films/{id}/like/{userId}", (random, data) -> send("DELETE",
+                "/films/" + skewed(random, data.getFilms()) + "/like/" + (1 + random.nextInt(data.getUsers()))));
+        probes.put("PUT /users/{id}/friends/{friendId}", (random, data) -> {
+            int id = 2 + random.nextInt(data.getUsers() - 1);
+            return send("PUT", "/users/" + id + "/friends/" + skewed(random, id - 1));
+        });
+        probes.put("DELETE /users/{id}/friends/{friendId}", (random, data) -> {
+            int id = 2 + random.nextInt(data.getUsers() - 1);
+            return send("DELETE", "/users/" + id + "/friends/" + skewed(random, id - 1));
+        });
+        probes.put("POST /films", (random, data) -> post("/films", "{\"name\":\"New film\"," +
+                "\"description\":\"Added during the benchmark\",\"releaseDate\":\"2001-02-03\",\"duration\":90," +
+                "\"mpa\":{\"id\":1},\"genres\":[{\"id\":2}]}"));
+        probes.put("POST /users", (random, data) -> post("/users", "{\"email\":\"new" + random.nextInt() +
+                "@example.com\",\"login\":\"newcomer\",\"name\":\"Newcomer\",\"birthday\":\"1990-01-01\"}"));
+        return probes;
+    }
+
+    private static String report(List<DatasetGenerator.Dataset> datasets, Map<String, List<Result>> results) {
+        StringBuilder report = new StringBuilder("| endpoint |");
+        StringBuilder separator = new StringBuilder("|---|");
+        for (DatasetGenerator.Dataset dataset : datasets) {
+            report.append(String.format(Locale.ROOT, " p50 ms @%1$d | p99 ms @%1$d | queries @%1$d |",
+                    dataset.getRows()));
+            separator.append("---:|---:|---:|");
+        }
+        report.append('\n').append(separator).append('\n');
+        results.forEach((endpoint, row) -> report.append("| ").append(endpoint).append(" |")
+                .append(row.stream()
+                        .map(result -> String.format(Locale.ROOT, " %.2f | %.2f | %.1f |",
+                                result.p50Millis, result.p99Millis, result.statements))
+                        .collect(Collectors.joining()))
+                .append('\n'));
+        datasets.forEach(dataset -> report.append("\n- ").append(dataset));
+        return report.append('\n').toString();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path) {
+        return HttpRequest.newBuilder(uri(path)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static class Result {
+
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double statements;
+        private final int serverErrors;
+
+        private Result(double p50Millis, double p99Millis, double statements, int serverErrors) {
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.statements = statements;
+            this.serverErrors = serverErrors;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class FilmRecommenderTest {
+
+    private final FilmStorage storage = mock(FilmStorage.class);
+    private final Map<Long, long[]> filmsByUser = new HashMap<>();
+    private final Map<Long, long[]> likersByFilm = new HashMap<>();
+    private FilmRecommender recommender;
+
+    private void likes(long userId, long... filmIds) {
+        filmsByUser.put(userId, filmIds);
+        for (long filmId : filmIds) {
+            long[] likers = likersByFilm.getOrDefault(filmId, new long[0]);
+            long[] updated = Arrays.copyOf(likers, likers.length + 1);
+            updated[likers.length] = userId;
+            likersByFilm.put(filmId, updated);
+        }
+    }
+
+    private FilmRecommender recommender(long maxStalenessMs, int splitSize) {
+        return recommender(maxStalenessMs, splitSize, 1_000);
+    }
+
+    private FilmRecommender recommender(long maxStalenessMs, int splitSize, int maxCandidates) {
+        when(storage.getLikedFilmIds(anyLong()))
+                .thenAnswer(invocation -> filmsByUser.getOrDefault(invocation.<Long>getArgument(0), new long[0]));
+        when(storage.getLikerIds(anyLong()))
+                .thenAnswer(invocation -> likersByFilm.getOrDefault(invocation.<Long>getArgument(0), new long[0]));
+        return new FilmRecommender(storage, maxStalenessMs, 2, maxCandidates, 100, splitSize, 100, 2);
+    }
+
+    @AfterEach
+    void stop() {
+        recommender.stop();
+    }
+
+    @Test
+    void shouldRecommendFilmsOfMostSimilarUsers() {
+        likes(1, 1, 2, 3, 4);
+        likes(2, 1, 2, 3, 10, 11);
+        likes(3, 1, 2, 11, 12);
+        likes(4, 4, 13);
+        recommender = recommender(60_000, 1);
+
+        assertThat(recommender.recommend(1, 10)).containsExactly(11, 10, 12);
+        assertThat(recommender.recommend(1, 1)).containsExactly(11);
+        assertThat(recommender.recommend(5, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldCapCandidatesAfterMergingSlices() {
+        likes(1, 10, 11);
+        likes(2, 10, 20);
+        likes(3, 10);
+        likes(4, 10, 11, 30);
+        recommender = recommender(60_000, 1, 2);
+
+        assertThat(recommender.recommend(1, 10)).containsExactly(30, 20);
+    }
+
+    @Test
+    void shouldServeCachedRankingUntilStaleOrInvalidated() {
+        likes(1, 1, 5);
+        likes(2, 1, 2);
+        recommender = recommender(60_000, 16);
+
+        assertThat(recommender.recommend(1, 10)).containsExactly(2);
+        likes(3, 1, 5, 3);
+        likes(4, 1, 5, 3);
+        assertThat(recommender.recommend(1, 10)).containsExactly(2);
+        assertThat(recommender.getStats().getHits()).isEqualTo(1);
+
+        recommender.invalidate(1);
+        assertThat(recommender.recommend(1, 10)).containsExactly(3);
+        assertThat(recommender.getStats().getMisses()).isEqualTo(2);
+        verify(storage, times(2)).getLikedFilmIds(1);
+    }
+
+    @Test
+    void shouldNotCacheRankingComputedWhileLikesChanged() {
+        likes(1, 1);
+        likes(2, 1, 2);
+        recommender = recommender(60_000, 16);
+        FilmRecommender current = recommender;
+        when(storage.getLikedFilmIds(1)).thenAnswer(invocation -> {
+            current.invalidate(1);
+            return filmsByUser.get(1L);
+        }).thenAnswer(invocation -> filmsByUser.get(1L));
+
+        assertThat(recommender.recommend(1, 10)).containsExactly(2);
+        assertThat(recommender.recommend(1, 10)).containsExactly(2);
+        assertThat(recommender.recommend(1, 10)).containsExactly(2);
+        assertThat(recommender.getStats().getMisses()).isEqualTo(2);
+        assertThat(recommender.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecomputeStaleRankings() {
+        likes(1, 1);
+        likes(2, 1, 2);
+        recommender = recommender(0, 16);
+
+        recommender.recommend(1, 10);
+        recommender.recommend(1, 10);
+        assertThat(recommender.getStats().getMisses()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dao.FriendshipDao;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FriendRecommenderTest {
+
+    private static final int USERS = 2_000;
+
+    private final FriendshipDao friendshipDao = mock(FriendshipDao.class);
+    private final Map<Long, long[]> friends = new HashMap<>();
+    private FriendRecommender recommender;
+
+    private void randomGraph() {
+        Random random = new Random(3);
+        for (long user = 1; user <= USERS; user++) {
+            int degree = user == 1 ? 600 : random.nextInt(40);
+            TreeSet<Long> userFriends = new TreeSet<>();
+            while (userFriends.size() < degree) {
+                userFriends.add(1L + random.nextInt(USERS));
+            }
+            friends.put(user, userFriends.stream().mapToLong(Long::longValue).toArray());
+        }
+        stubGraph();
+    }
+
+    private void stubGraph() {
+        when(friendshipDao.isGraphLoaded()).thenReturn(true);
+        when(friendshipDao.getFriendIds(anyLong()))
+                .thenAnswer(invocation -> friends.getOrDefault(invocation.<Long>getArgument(0), new long[0]));
+    }
+
+    @AfterEach
+    void stop() {
+        if (recommender != null) {
+            recommender.stop();
+        }
+    }
+
+    @Test
+    void shouldRankNonFriendsByMutualFriendsAcrossSplits() {
+        randomGraph();
+        recommender = new FriendRecommender(friendshipDao, 60_000, 1_000_000, 16, 4);
+
+        long[] own = friends.get(1L);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long friend : own) {
+            for (long candidate : friends.get(friend)) {
+                if (candidate != 1 && Arrays.binarySearch(own, candidate) < 0) {
+                    expected.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        long[] top = expected.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(20)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+
+        assertThat(recommender.recommend(1, 20)).containsExactly(top);
+    }
+
+    @Test
+    void shouldRespectTimeBudgetAndCandidateCap() {
+        randomGraph();
+        recommender = new FriendRecommender(friendshipDao, 0, 1_000_000, 16, 4);
+        assertThat(recommender.recommend(1, 20)).isEmpty();
+
+        recommender.stop();
+        recommender = new FriendRecommender(friendshipDao, 60_000, 3, 1_000, 1);
+        assertThat(recommender.recommend(1, 20).length).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void shouldKeepBestCandidateWhenCandidateCapIsHit() {
+        friends.put(1L, new long[]{2, 3, 4});
+        friends.put(2L, new long[]{1, 3, 10, 11, 12, 99});
+        friends.put(3L, new long[]{1, 2, 13, 14, 99});
+        friends.put(4L, new long[]{1, 15, 16, 99});
+        stubGraph();
+        recommender = new FriendRecommender(friendshipDao, 60_000, 2, 1, 2);
+
+        assertThat(recommender.recommend(1, 2)).containsExactly(99, 10);
+        assertThat(recommender.recommend(1, 5)).containsExactly(99, 10);
+    }
+
+    @Test
+    void shouldRankInOneQueryWithoutFriendGraph() {
+        when(friendshipDao.getFriendRecommendationIds(1, 3)).thenReturn(new long[]{7, 5});
+        recommender = new FriendRecommender(friendshipDao, 60_000, 3, 16, 1);
+
+        assertThat(recommender.recommend(1, 20)).containsExactly(7, 5);
+        verify(friendshipDao, never()).getFriendIds(anyLong());
+    }
+}
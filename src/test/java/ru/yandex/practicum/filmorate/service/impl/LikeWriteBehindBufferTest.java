@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class LikeWriteBehindBufferTest {
+
+    private final FilmStorage storage = mock(FilmStorage.class);
+    private final FilmRecommender recommender = mock(FilmRecommender.class);
+
+    private LikeWriteBehindBuffer buffer(int capacity) {
+        return new LikeWriteBehindBuffer(storage, recommender, false, capacity, 2, 1000, 0, 3, 0);
+    }
+
+    private static Like like(long filmId, long userId) {
+        return Like.builder().filmId(filmId).userId(userId).build();
+    }
+
+    @Test
+    void shouldCollapseEventsPerFilmAndUser() {
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 1, false);
+        buffer.submit(1, 2, true);
+
+        assertThat(buffer.getStats().getQueueDepth()).isEqualTo(2);
+        assertThat(buffer.getStats().getCollapsedEvents()).isEqualTo(1);
+
+        buffer.flush();
+        verify(storage).deleteLikes(List.of(like(1, 1)));
+        verify(storage).addLikes(List.of(like(1, 2)));
+        assertThat(buffer.getStats().getQueueDepth()).isZero();
+        assertThat(buffer.getStats().getFlushedEvents()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWriteInBatchesOfConfiguredSize() {
+        LikeWriteBehindBuffer buffer = buffer(10);
+        for (long userId = 1; userId <= 5; userId++) {
+            buffer.submit(1, userId, true);
+        }
+        buffer.flush();
+        verify(storage, times(3)).addLikes(any());
+        verify(storage, never()).deleteLikes(any());
+    }
+
+    @Test
+    void shouldRejectEventsWhenBufferIsFull() {
+        LikeWriteBehindBuffer buffer = buffer(2);
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+        buffer.submit(1, 2, false);
+
+        assertThrows(OverloadedException.class, () -> buffer.submit(1, 3, true));
+        assertThat(buffer.getStats().getRejectedEvents()).isEqualTo(1);
+
+        buffer.flush();
+        buffer.submit(1, 3, true);
+        assertThat(buffer.getStats().getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldOverlayPendingEventsOnStoredLikes() {
+        when(storage.getLikesByFilm(1)).thenReturn(List.of(1L, 2L));
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.submit(1, 3, true);
+        buffer.submit(1, 2, false);
+        buffer.submit(2, 4, true);
+
+        assertThat(buffer.getLikesByFilm(1)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void shouldRequeueFailedEventsBehindNewerOnes() {
+        when(storage.getLikesByFilm(1)).thenReturn(List.of());
+        doThrow(new IllegalStateException("Database is down")).doNothing().when(storage).addLikes(any());
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+
+        buffer.flush();
+        assertThat(buffer.getStats().getQueueDepth()).isEqualTo(2);
+        assertThat(buffer.getStats().getRetriedEvents()).isEqualTo(2);
+        assertThat(buffer.getStats().getFailedEvents()).isZero();
+        assertThat(buffer.getLikesByFilm(1)).containsExactly(1L, 2L);
+        verify(recommender, never()).invalidate(anyLong());
+
+        buffer.submit(1, 2, false);
+        buffer.flush();
+        verify(storage).addLikes(List.of(like(1, 1), like(1, 2)));
+        verify(storage).addLikes(List.of(like(1, 1)));
+        verify(storage).deleteLikes(List.of(like(1, 2)));
+        assertThat(buffer.getStats().getQueueDepth()).isZero();
+        assertThat(buffer.getLikesByFilm(1)).isEmpty();
+        verify(recommender).invalidate(1);
+        verify(recommender).invalidate(2);
+    }
+
+    @Test
+    void shouldCountEventsBeingWrittenAgainstCapacity() {
+        LikeWriteBehindBuffer buffer = buffer(2);
+        doAnswer(invocation -> {
+            assertThrows(OverloadedException.class, () -> buffer.submit(2, 1, true));
+            throw new IllegalStateException("Database is down");
+        }).when(storage).addLikes(any());
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+
+        buffer.flush();
+        assertThat(buffer.getStats().getQueueDepth()).isEqualTo(2);
+        assertThat(buffer.getStats().getRejectedEvents()).isEqualTo(1);
+        assertThrows(OverloadedException.class, () -> buffer.submit(2, 1, true));
+    }
+
+    @Test
+    void shouldGiveUpOnEventsAfterMaxAttempts() {
+        doThrow(new IllegalStateException("Database is down")).when(storage).addLikes(any());
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.submit(1, 1, true);
+
+        buffer.flush();
+        buffer.flush();
+        assertThat(buffer.getStats().getQueueDepth()).isEqualTo(1);
+        buffer.flush();
+
+        verify(storage, times(3)).addLikes(List.of(like(1, 1)));
+        assertThat(buffer.getStats().getQueueDepth()).isZero();
+        assertThat(buffer.getStats().getFailedEvents()).isEqualTo(1);
+        assertThat(buffer.getStats().getRetriedEvents()).isEqualTo(2);
+    }
+}